@@ -0,0 +1,64 @@
+// Сравнение режимов обработки запросов на /recipes/recommended и /products/catalog.
+//
+// Запуск одного и того же сценария против двух сборок:
+//   платформенные потоки: ./gradlew bootRun
+//   виртуальные потоки:   ./gradlew bootRun -PjavaVersion=21 --args='--spring.threads.virtual.enabled=true'
+//   k6 run -e BASE_URL=http://localhost:8081/api -e EMAIL=... -e PASSWORD=... \
+//          --summary-export=summary-<режим>.json loadtest/virtual-threads.js
+//
+// В итогах сравниваются http_reqs (пропускная способность) и p(99) http_req_duration по тегу endpoint;
+// в режиме виртуальных потоков отдельно смотрится доля 503 от ограничения соединений с БД
+// (catalog работает из памяти и этим ограничением не затрагивается).
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8081/api';
+const VUS = Number(__ENV.VUS || 200);
+const DURATION = __ENV.DURATION || '2m';
+
+export const options = {
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    scenarios: {
+        recommended: {
+            executor: 'constant-vus',
+            exec: 'recommended',
+            vus: VUS,
+            duration: DURATION,
+        },
+        catalog: {
+            executor: 'constant-vus',
+            exec: 'catalog',
+            vus: VUS,
+            duration: DURATION,
+        },
+    },
+    thresholds: {
+        'http_req_duration{endpoint:recommended}': ['p(99)>=0'],
+        'http_req_duration{endpoint:catalog}': ['p(99)>=0'],
+        'http_reqs{endpoint:recommended}': ['count>=0'],
+        'http_reqs{endpoint:catalog}': ['count>=0'],
+    },
+};
+
+export function setup() {
+    const response = http.post(`${BASE_URL}/auth/login`,
+        JSON.stringify({ email: __ENV.EMAIL, password: __ENV.PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(response, { 'вход выполнен': (r) => r.status === 200 });
+    return { token: response.json('token') };
+}
+
+export function recommended(data) {
+    const response = http.get(`${BASE_URL}/recipes/recommended?limit=20`, {
+        headers: { Authorization: `Bearer ${data.token}` },
+        tags: { endpoint: 'recommended' },
+    });
+    check(response, { 'recommended 200': (r) => r.status === 200 });
+}
+
+export function catalog() {
+    const response = http.get(`${BASE_URL}/products/catalog?size=50`, {
+        tags: { endpoint: 'catalog' },
+    });
+    check(response, { 'catalog 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,72 @@
+package org.cooking.cookingbenefits.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.cooking.cookingbenefits.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Выпуск токена и стоимость его проверки на один запрос: прежний путь (ключ и парсер
+ * на каждый вызов, три разбора токена) против текущего (один разбор готовым парсером).
+ * Чтение пользователя (из БД в прежнем пути, из PrincipalCache в текущем) здесь не учитывается.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "ZGFzZGJmaHNicWk5ODc0NWtqbmJjbGt1ZXl3aXJ1cG9hc2RmbmtqYXNmaGtq";
+    private static final String EMAIL = "user@example.com";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenUtil = new JwtTokenUtil(SECRET, 86_400_000L);
+        user = User.builder().id(42L).email(EMAIL).role("user").build();
+        token = jwtTokenUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean legacyValidation() {
+        String username = legacyClaim(token, Claims::getSubject);
+        return username.equals(EMAIL)
+                && legacyClaim(token, Claims::getSubject).equals(EMAIL)
+                && !legacyClaim(token, Claims::getExpiration).before(new Date());
+    }
+
+    @Benchmark
+    public User singleParse() {
+        Claims claims = jwtTokenUtil.parseClaims(token);
+        return User.builder()
+                .id(claims.get(JwtTokenUtil.CLAIM_USER_ID, Long.class))
+                .email(claims.getSubject())
+                .role(claims.get(JwtTokenUtil.CLAIM_ROLE, String.class))
+                .build();
+    }
+
+    // Прежний JwtTokenUtil.extractClaim: секрет декодируется и парсер строится при каждом вызове
+    private static <T> T legacyClaim(String token, Function<Claims, T> resolver) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return resolver.apply(claims);
+    }
+}
@@ -0,0 +1,87 @@
+package org.cooking.cookingbenefits.service;
+
+import org.cooking.cookingbenefits.entity.Product;
+import org.cooking.cookingbenefits.entity.Recipe;
+import org.cooking.cookingbenefits.entity.RecipeIngredient;
+
+import java.util.*;
+
+/**
+ * Синтетический каталог для бенчмарков: продукты, рецепты по 5-14 ингредиентов
+ * и продукты одного пользователя. Генератор детерминированный, чтобы результаты
+ * разных коммитов были сравнимы.
+ */
+final class CatalogFixture {
+
+    static final int PRODUCT_COUNT = 2_000;
+    static final int PANTRY_SIZE = 60;
+    static final int EXCLUDED_SIZE = 3;
+
+    final List<Product> products = new ArrayList<>();
+    final List<Recipe> recipes = new ArrayList<>();
+    final List<RecipeIngredient> ingredients = new ArrayList<>();
+    final Map<Long, List<Long>> productIdsByRecipe = new HashMap<>();
+    final Set<Long> pantry = new HashSet<>();
+    final Set<Long> excluded = new HashSet<>();
+
+    CatalogFixture(int recipeCount) {
+        Random random = new Random(42);
+        for (long id = 1; id <= PRODUCT_COUNT; id++) {
+            Product product = new Product();
+            product.setId(id);
+            product.setName("Продукт " + id);
+            product.setCategory("Категория " + (id % 20));
+            products.add(product);
+        }
+
+        long ingredientId = 1;
+        for (long recipeId = 1; recipeId <= recipeCount; recipeId++) {
+            Recipe recipe = Recipe.builder()
+                    .id(recipeId)
+                    .title("Рецепт " + recipeId)
+                    .description("Описание рецепта " + recipeId)
+                    .cookingSteps("Шаг 1. Шаг 2. Шаг 3.")
+                    .cookingTimeMinutes(10 + random.nextInt(120))
+                    .category("Категория " + (recipeId % 10))
+                    .build();
+            recipes.add(recipe);
+
+            List<Long> productIds = new ArrayList<>();
+            int ingredientCount = 5 + random.nextInt(10);
+            while (productIds.size() < ingredientCount) {
+                // Популярные продукты встречаются чаще, как в реальном каталоге
+                long productId = 1 + (long) (PRODUCT_COUNT * Math.pow(random.nextDouble(), 2));
+                if (productIds.contains(productId)) {
+                    continue;
+                }
+                productIds.add(productId);
+
+                RecipeIngredient ingredient = new RecipeIngredient();
+                ingredient.setId(ingredientId++);
+                ingredient.setRecipe(recipe);
+                ingredient.setProduct(products.get((int) productId - 1));
+                ingredient.setQuantity(100.0);
+                ingredient.setUnit("г");
+                ingredients.add(ingredient);
+            }
+            productIdsByRecipe.put(recipeId, productIds);
+        }
+
+        while (pantry.size() < PANTRY_SIZE) {
+            pantry.add(1 + (long) (PRODUCT_COUNT * Math.pow(random.nextDouble(), 2)));
+        }
+        while (excluded.size() < EXCLUDED_SIZE) {
+            long productId = 1 + random.nextInt(PRODUCT_COUNT);
+            if (!pantry.contains(productId)) {
+                excluded.add(productId);
+            }
+        }
+    }
+
+    RecommendationIndex recommendationIndex() {
+        // Репозитории нужны только для rebuild, рецепты кладутся напрямую
+        RecommendationIndex index = new RecommendationIndex(null, null, null);
+        productIdsByRecipe.forEach(index::put);
+        return index;
+    }
+}
@@ -0,0 +1,64 @@
+package org.cooking.cookingbenefits.service;
+
+import org.cooking.cookingbenefits.dto.ProductDTO;
+import org.cooking.cookingbenefits.dto.RecipeDTO;
+import org.cooking.cookingbenefits.entity.Product;
+import org.cooking.cookingbenefits.entity.Recipe;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование всего каталога в DTO: группировка ингредиентов и RecipeService.convertToDTO,
+ * а также ProductService.convertToProductDTO. Строки уже загружены, БД не участвует.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class DtoConversionBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int recipeCount;
+
+    private CatalogFixture fixture;
+
+    @Setup
+    public void setUp() {
+        fixture = new CatalogFixture(recipeCount);
+    }
+
+    @Benchmark
+    public void convertToDTO(Blackhole blackhole) {
+        Map<Long, List<RecipeDTO.IngredientDTO>> ingredients = RecipeService.groupIngredients(fixture.ingredients);
+        for (Recipe recipe : fixture.recipes) {
+            blackhole.consume(RecipeService.convertToDTO(recipe, ingredients));
+        }
+    }
+
+    /**
+     * Каталог продуктов не зависит от числа рецептов, поэтому считается отдельно и без параметров.
+     */
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @State(Scope.Benchmark)
+    public static class Products {
+
+        private List<Product> products;
+
+        @Setup
+        public void setUp() {
+            products = new CatalogFixture(0).products;
+        }
+
+        @Benchmark
+        public void convertToProductDTO(Blackhole blackhole) {
+            for (Product product : products) {
+                ProductDTO dto = ProductService.convertToProductDTO(product);
+                blackhole.consume(dto);
+            }
+        }
+    }
+}
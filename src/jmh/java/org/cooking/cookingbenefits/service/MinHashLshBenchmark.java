@@ -0,0 +1,68 @@
+package org.cooking.cookingbenefits.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск похожих рецептов: кандидаты из корзин MinHash/LSH против точного Жаккара
+ * по всему каталогу. Полнота LSH проверяется в MinHashLshTest, здесь только время.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MinHashLshBenchmark {
+
+    private static final double THRESHOLD = 0.5;
+    private static final int QUERY_COUNT = 64;
+
+    @Param({"1000", "10000", "100000"})
+    public int recipeCount;
+
+    private MinHashLsh lsh;
+    private final Map<Long, long[]> sortedProducts = new HashMap<>();
+    private long[] queryIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        CatalogFixture fixture = new CatalogFixture(recipeCount);
+        lsh = new MinHashLsh(16, 4);
+        fixture.productIdsByRecipe.forEach(lsh::put);
+        fixture.productIdsByRecipe.forEach((id, products) ->
+                sortedProducts.put(id, products.stream().mapToLong(Long::longValue).sorted().toArray()));
+
+        queryIds = new long[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queryIds[i] = 1 + (long) i * recipeCount / QUERY_COUNT;
+        }
+    }
+
+    @Benchmark
+    public List<MinHashLsh.Similarity> lsh() {
+        return lsh.findSimilar(nextQuery(), Integer.MAX_VALUE, THRESHOLD);
+    }
+
+    @Benchmark
+    public List<Long> exactJaccard() {
+        long recipeId = nextQuery();
+        long[] products = sortedProducts.get(recipeId);
+        List<Long> similar = new ArrayList<>();
+        for (Map.Entry<Long, long[]> other : sortedProducts.entrySet()) {
+            if (other.getKey() != recipeId && MinHashLsh.jaccard(products, other.getValue()) >= THRESHOLD) {
+                similar.add(other.getKey());
+            }
+        }
+        return similar;
+    }
+
+    private long nextQuery() {
+        long recipeId = queryIds[next];
+        next = (next + 1) % QUERY_COUNT;
+        return recipeId;
+    }
+}
@@ -0,0 +1,87 @@
+package org.cooking.cookingbenefits.service;
+
+import org.cooking.cookingbenefits.dto.ProductDTO;
+import org.cooking.cookingbenefits.repository.ProductRepository;
+import org.cooking.cookingbenefits.repository.UserProductRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Пропускная способность добавления и удаления продуктов пользователя при 1 и 8 потоках.
+ * Репозиторий заменен таблицей в памяти с задержкой на каждый запрос, как у БД: при
+ * глобальной блокировке в сервисе результат не рос бы с числом потоков.
+ * Идемпотентность на настоящем PostgreSQL проверяется в ProductServiceConcurrencyTest.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class PantryWritesBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final int PRODUCTS = 100;
+    private static final long DB_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Set<String> rows = ConcurrentHashMap.newKeySet();
+    private ProductService service;
+
+    @Setup
+    public void setUp() {
+        UserProductRepository userProducts = repository(UserProductRepository.class, (method, args) -> {
+            dbRoundTrip();
+            String key = args[0] + ":" + ((Long[]) args[1])[0];
+            return switch (method) {
+                case "insertMissing" -> rows.add(key) ? 1 : 0;
+                case "deleteByUserIdAndProductIds" -> rows.remove(key) ? 1 : 0;
+                default -> throw new UnsupportedOperationException(method);
+            };
+        });
+        ProductRepository products = repository(ProductRepository.class, (method, args) -> {
+            dbRoundTrip();
+            return true;
+        });
+        // Индексы каталога в этих операциях не используются
+        service = new ProductService(products, userProducts, null, null, event -> { }, null, null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void singleThread() {
+        addThenRemove();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void eightThreads() {
+        addThenRemove();
+    }
+
+    private void addThenRemove() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long userId = 1 + random.nextInt(USERS);
+        ProductDTO dto = new ProductDTO();
+        dto.setId(1L + random.nextInt(PRODUCTS));
+        service.addUserProduct(userId, dto);
+        service.removeUserProduct(userId, dto.getId());
+    }
+
+    private static void dbRoundTrip() {
+        LockSupport.parkNanos(DB_LATENCY_NANOS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, RepositoryCall call) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> call.invoke(method.getName(), args));
+    }
+
+    @FunctionalInterface
+    private interface RepositoryCall {
+        Object invoke(String method, Object[] args);
+    }
+}
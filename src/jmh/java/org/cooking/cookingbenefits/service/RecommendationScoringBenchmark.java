@@ -0,0 +1,38 @@
+package org.cooking.cookingbenefits.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подбор рецептов по продуктам пользователя в RecommendationIndex: то, что RecipeService
+ * получает через IndexRecipeScorer без учета чтения продуктов пользователя из БД.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RecommendationScoringBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int recipeCount;
+
+    private CatalogFixture fixture;
+    private RecommendationIndex index;
+
+    @Setup
+    public void setUp() {
+        fixture = new CatalogFixture(recipeCount);
+        index = fixture.recommendationIndex();
+    }
+
+    @Benchmark
+    public List<RecipeScore> topScores() {
+        return index.topScores(fixture.pantry, fixture.excluded, 20, null);
+    }
+
+    @Benchmark
+    public List<NearMatch> cookableNearMatches() {
+        return index.findNearMatches(fixture.pantry, fixture.excluded, 2, 20);
+    }
+}
@@ -0,0 +1,85 @@
+package org.cooking.cookingbenefits.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка нечеткого поиска по названию с одной опечаткой. Режим SampleTime дает
+ * распределение, в отчете смотрятся p0.50 и p0.99. Находимость проверяется в SymSpellIndexTest.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SymSpellBenchmark {
+
+    private static final int QUERY_COUNT = 2_000;
+
+    private static final String[] BASES = {"помидор", "огурец", "молоко", "сыр", "картофель", "морковь", "говядина",
+            "свинина", "курица", "йогурт", "сметана", "творог", "яблоко", "груша", "капуста", "лук", "чеснок",
+            "перец", "баклажан", "кабачок", "гречка", "рис", "макароны", "мука", "сахар", "соль", "масло", "яйцо"};
+    private static final String[] ADJECTIVES = {"свежий", "копченый", "молодой", "домашний", "органический",
+            "замороженный", "сушеный", "маринованный", "красный", "зеленый", "черри", "фермерский"};
+    private static final String[] SYLLABLES = "ба ве го да ке ли мо но пу ра си ту фа хо це ша".split(" ");
+
+    @Param({"5000", "50000"})
+    public int productCount;
+
+    private SymSpellIndex index;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        String[] names = new String[productCount];
+        index = new SymSpellIndex(2);
+        for (int i = 0; i < productCount; i++) {
+            names[i] = ProductNameNormalizer.normalize(syntheticName(random));
+            index.add(i, names[i]);
+        }
+        queries = new String[QUERY_COUNT];
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            queries[q] = misspell(names[random.nextInt(productCount)], random);
+        }
+    }
+
+    @Benchmark
+    public List<SymSpellIndex.Match> search() {
+        String query = queries[next];
+        next = (next + 1) % QUERY_COUNT;
+        return index.search(query, 50);
+    }
+
+    private static String syntheticName(SplittableRandom random) {
+        StringBuilder brand = new StringBuilder();
+        for (int s = 2 + random.nextInt(3); s > 0; s--) {
+            brand.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + BASES[random.nextInt(BASES.length)] + " " + brand;
+    }
+
+    // Одна опечатка в случайном слове длиннее трех букв: удаление, замена или перестановка
+    private static String misspell(String name, SplittableRandom random) {
+        String[] words = name.split(" ");
+        int w = random.nextInt(words.length);
+        while (words[w].length() <= 3) {
+            w = (w + 1) % words.length;
+        }
+        StringBuilder word = new StringBuilder(words[w]);
+        int position = 1 + random.nextInt(word.length() - 2);
+        switch (random.nextInt(3)) {
+            case 0 -> word.deleteCharAt(position);
+            case 1 -> word.setCharAt(position, 'ы');
+            default -> {
+                char c = word.charAt(position);
+                word.setCharAt(position, word.charAt(position + 1));
+                word.setCharAt(position + 1, c);
+            }
+        }
+        words[w] = word.toString();
+        return String.join(" ", words);
+    }
+}
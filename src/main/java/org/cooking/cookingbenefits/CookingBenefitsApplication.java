@@ -2,8 +2,10 @@ package org.cooking.cookingbenefits;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CookingBenefitsApplication {
     public static void main(String[] args) {
         SpringApplication.run(CookingBenefitsApplication.class, args);
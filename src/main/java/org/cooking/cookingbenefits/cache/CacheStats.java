@@ -0,0 +1,9 @@
+package org.cooking.cookingbenefits.cache;
+
+public record CacheStats(long hits, long misses, long evictions, int size, int maxSize) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,41 @@
+package org.cooking.cookingbenefits.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Ограничение нагрузки на БД в режиме виртуальных потоков. Платформенный пул Tomcat сам
+ * ограничивал параллелизм, а виртуальных потоков можно создать сколько угодно, и все они
+ * встанут в очередь за соединениями Hikari. Лимит стоит на выдаче соединений, а не на запросах:
+ * каталог, автодополнение и health работают из памяти и не ограничиваются.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class AdmissionControlConfig {
+
+    @Bean
+    static BeanPostProcessor admissionControlDataSource(
+            @Value("${app.virtual-threads.max-db-connections:${spring.datasource.hikari.maximum-pool-size:10}}")
+            int maxConnections,
+            @Value("${app.virtual-threads.admission-timeout:5s}") Duration timeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof AdmissionControlDataSource)) {
+                    log.info("Виртуальные потоки включены, одновременно выдается до {} соединений с БД", maxConnections);
+                    return new AdmissionControlDataSource(dataSource, maxConnections, timeout.toNanos());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package org.cooking.cookingbenefits.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ограничение одновременно выданных соединений с БД. Разрешение берется при получении
+ * соединения и возвращается при его закрытии, поэтому лимит касается только работы с БД
+ * и держится ровно столько, сколько занято соединение, в том числе в асинхронных выгрузках.
+ * Не дождавшийся разрешения получает {@link AdmissionRejectedException} вместо долгого
+ * ожидания в очереди пула.
+ */
+public class AdmissionControlDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final long timeoutNanos;
+
+    public AdmissionControlDataSource(DataSource target, int maxConnections, long timeoutNanos) {
+        super(target);
+        this.permits = new Semaphore(maxConnections, true);
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Ожидание соединения с БД прервано");
+        }
+        if (!acquired) {
+            throw new AdmissionRejectedException("Нет свободных соединений с БД за "
+                    + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " мс");
+        }
+    }
+
+    // Разрешение возвращается один раз, даже если close() вызван повторно
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                        try {
+                            connection.close();
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    public static class AdmissionRejectedException extends SQLTransientConnectionException {
+        AdmissionRejectedException(String message) {
+            super(message);
+        }
+    }
+}
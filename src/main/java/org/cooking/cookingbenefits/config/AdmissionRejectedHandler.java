@@ -0,0 +1,33 @@
+package org.cooking.cookingbenefits.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Отказ в соединении с БД из {@link AdmissionControlDataSource} отдается как 503 с Retry-After.
+ * Spring оборачивает его по-разному (JPA, JdbcTemplate, начало транзакции), поэтому причина
+ * ищется по цепочке; прочие ошибки доступа к данным обрабатываются как раньше.
+ */
+@Slf4j
+@RestControllerAdvice
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class AdmissionRejectedHandler {
+
+    @ExceptionHandler({DataAccessException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<Void> handle(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AdmissionControlDataSource.AdmissionRejectedException) {
+                log.warn("Запрос отклонен: {}", cause.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").build();
+            }
+        }
+        throw e;
+    }
+}
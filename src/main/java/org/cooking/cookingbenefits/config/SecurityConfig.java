@@ -1,6 +1,8 @@
 package org.cooking.cookingbenefits.config;
 
 import lombok.RequiredArgsConstructor;
+import org.cooking.cookingbenefits.controller.CursorResponses;
+import org.cooking.cookingbenefits.controller.RecipeController;
 import org.cooking.cookingbenefits.security.JwtAuthFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -35,6 +37,8 @@ public class SecurityConfig {
                     corsConfig.addAllowedMethod("*");
                     corsConfig.addAllowedHeader("*");
                     corsConfig.addExposedHeader("Authorization");
+                    corsConfig.addExposedHeader(CursorResponses.NEXT_CURSOR_HEADER);
+                    corsConfig.addExposedHeader(RecipeController.TOTAL_COUNT_HEADER);
                     corsConfig.setAllowCredentials(false);
                     return corsConfig;
                 }))
@@ -50,7 +54,7 @@ public class SecurityConfig {
                         ).permitAll()
 
                         // Доступ к продуктам каталога - публичный
-                        .requestMatchers(HttpMethod.GET, "/products/catalog").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/products/catalog", "/products/autocomplete").permitAll()
 
                         // Проверка доступности email - публичная
                         .requestMatchers(HttpMethod.GET, "/auth/check-email").permitAll()
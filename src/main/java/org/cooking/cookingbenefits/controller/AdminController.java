@@ -0,0 +1,69 @@
+package org.cooking.cookingbenefits.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.cooking.cookingbenefits.cache.CacheStats;
+import org.cooking.cookingbenefits.dto.ImportJobStatus;
+import org.cooking.cookingbenefits.security.PrincipalCache;
+import org.cooking.cookingbenefits.service.CatalogImportService;
+import org.cooking.cookingbenefits.service.RecommendationCache;
+import org.cooking.cookingbenefits.service.RecommendationPrecomputeJob;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class AdminController {
+
+    private final RecommendationCache recommendationCache;
+    private final PrincipalCache principalCache;
+    private final ObjectProvider<RecommendationPrecomputeJob> precomputeJob;
+    private final CatalogImportService catalogImportService;
+
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, CacheStats>> getCacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("recommendations", recommendationCache.stats());
+        stats.put("principals", principalCache.stats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @PostMapping("/recommendations/precompute")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> precomputeRecommendations() {
+        RecommendationPrecomputeJob job = precomputeJob.getIfAvailable();
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(job.startActiveUsers() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).build();
+    }
+
+    @PostMapping("/import/products")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportJobStatus> importProducts(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(catalogImportService.startProductImport(file));
+    }
+
+    @PostMapping("/import/recipes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportJobStatus> importRecipes(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(catalogImportService.startRecipeImport(file));
+    }
+
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportJobStatus> getImportStatus(@PathVariable String jobId) {
+        return catalogImportService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -7,11 +7,11 @@ import org.cooking.cookingbenefits.dto.AuthResponse;
 import org.cooking.cookingbenefits.entity.User;
 import org.cooking.cookingbenefits.repository.UserRepository;
 import org.cooking.cookingbenefits.security.JwtTokenUtil;
+import org.cooking.cookingbenefits.service.LastLoginRecorder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
@@ -28,6 +28,7 @@ public class AuthController {
     private final JwtTokenUtil jwtTokenUtil;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final LastLoginRecorder lastLoginRecorder;
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody AuthRequest authRequest) {
@@ -38,14 +39,11 @@ public class AuthController {
                 )
         );
 
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String token = jwtTokenUtil.generateToken(userDetails);
+        // Принципал - пользователь, только что загруженный при проверке пароля, повторно его читать не нужно
+        User user = (User) authentication.getPrincipal();
+        String token = jwtTokenUtil.generateToken(user);
 
-        User user = userRepository.findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
-
-        user.setLastLoginAt(LocalDateTime.now());
-        userRepository.save(user);
+        lastLoginRecorder.record(user.getId(), LocalDateTime.now());
 
         return ResponseEntity.ok(new AuthResponse(
                 token,
@@ -0,0 +1,26 @@
+package org.cooking.cookingbenefits.controller;
+
+import org.cooking.cookingbenefits.dto.CursorPage;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Страницы с курсором отдаются простым списком, а курсор следующей страницы
+ * передается в заголовке, чтобы не менять формат ответа для клиентов.
+ */
+public final class CursorResponses {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private CursorResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> withNextCursor(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+}
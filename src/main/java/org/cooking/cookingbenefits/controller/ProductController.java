@@ -2,14 +2,20 @@ package org.cooking.cookingbenefits.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.cooking.cookingbenefits.dto.CursorPage;
+import org.cooking.cookingbenefits.dto.PantrySyncRequest;
 import org.cooking.cookingbenefits.dto.ProductDTO;
 import org.cooking.cookingbenefits.entity.User;
+import org.cooking.cookingbenefits.service.CatalogExportService;
 import org.cooking.cookingbenefits.service.ProductService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
 import java.util.List;
 
 @RestController
@@ -19,11 +25,15 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogExportService catalogExportService;
 
     @GetMapping("/available")
-    public ResponseEntity<List<ProductDTO>> getUserProducts(@AuthenticationPrincipal User user) {
-        List<ProductDTO> products = productService.getUserProducts(user.getId());
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDTO>> getUserProducts(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<ProductDTO> products = productService.getUserProducts(user.getId(), cursor, size);
+        return CursorResponses.withNextCursor(products);
     }
 
     @PostMapping("/available")
@@ -35,6 +45,14 @@ public class ProductController {
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/available")
+    public ResponseEntity<List<ProductDTO>> syncUserProducts(
+            @AuthenticationPrincipal User user,
+            @Valid @RequestBody PantrySyncRequest request) {
+
+        return ResponseEntity.ok(productService.syncUserProducts(user.getId(), request));
+    }
+
     @DeleteMapping("/available/{productId}")
     public ResponseEntity<Void> removeUserProduct(
             @AuthenticationPrincipal User user,
@@ -46,10 +64,21 @@ public class ProductController {
     @GetMapping("/catalog")
     public ResponseEntity<List<ProductDTO>> getProductCatalog(
             @RequestParam(required = false) String category,
-            @RequestParam(defaultValue = "") String search) {
+            @RequestParam(defaultValue = "") String search,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
 
-        List<ProductDTO> products = productService.getProductCatalog(category, search);
-        return ResponseEntity.ok(products);
+        CursorPage<ProductDTO> products = productService.getProductCatalog(category, search, fuzzy, cursor, size);
+        return CursorResponses.withNextCursor(products);
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<ProductDTO>> autocomplete(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(productService.autocomplete(prefix, limit));
     }
 
     @PostMapping("/exclusions")
@@ -83,8 +112,18 @@ public class ProductController {
     }
     @GetMapping("/admin/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<ProductDTO>> getAllProductsForAdmin() {
-        List<ProductDTO> products = productService.getAllProductsForAdmin();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDTO>> getAllProductsForAdmin(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<ProductDTO> products = productService.getAllProductsForAdmin(cursor, size);
+        return CursorResponses.withNextCursor(products);
+    }
+
+    @GetMapping(value = "/admin/export", produces = CatalogExportService.NDJSON)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(CatalogExportService.NDJSON))
+                .body(catalogExportService::exportProducts);
     }
 }
\ No newline at end of file
@@ -2,16 +2,21 @@ package org.cooking.cookingbenefits.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.cooking.cookingbenefits.dto.CursorPage;
 import org.cooking.cookingbenefits.dto.RecipeDTO;
+import org.cooking.cookingbenefits.dto.RecipeSummaryDTO;
 import org.cooking.cookingbenefits.entity.User;
+import org.cooking.cookingbenefits.service.CatalogExportService;
 import org.cooking.cookingbenefits.service.RecipeService;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Collections;
 import java.util.List;
 
 @RestController
@@ -20,25 +25,44 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class RecipeController {
 
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private final RecipeService recipeService;
+    private final CatalogExportService catalogExportService;
 
     @GetMapping("/recommended")
-    public ResponseEntity<List<RecipeDTO>> getRecommendedRecipes(
+    public ResponseEntity<List<RecipeSummaryDTO>> getRecommendedRecipes(
             @AuthenticationPrincipal User user,
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean missingIdsOnly) {
 
-        List<RecipeDTO> recommendations = recipeService.getRecommendedRecipes(user.getId(), limit);
-        return ResponseEntity.ok(recommendations);
+        CursorPage<RecipeSummaryDTO> recommendations =
+                recipeService.getRecommendedRecipes(user.getId(), limit, cursor, missingIdsOnly);
+        return CursorResponses.withNextCursor(recommendations);
+    }
+
+    @GetMapping("/cookable")
+    public ResponseEntity<List<RecipeDTO>> getCookableRecipes(
+            @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "2") int maxMissing,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        return ResponseEntity.ok(recipeService.getCookableRecipes(user.getId(), maxMissing, limit));
     }
 
     @GetMapping("/search")
     public ResponseEntity<List<RecipeDTO>> searchRecipes(
             @RequestParam(required = false) String query,
             @RequestParam(required = false) List<Long> productIds,
-            @RequestParam(defaultValue = "0") int minIngredients) {
-
-
-        return ResponseEntity.ok(Collections.emptyList());
+            @RequestParam(defaultValue = "0") int minIngredients,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Page<RecipeDTO> recipes = recipeService.searchRecipes(query, productIds, minIngredients, page, size);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(recipes.getTotalElements()))
+                .body(recipes.getContent());
     }
 
     @GetMapping("/{id}")
@@ -47,6 +71,15 @@ public class RecipeController {
         return ResponseEntity.ok(recipeService.getRecipeById(id));
     }
 
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<RecipeDTO>> getSimilarRecipes(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "0.3") double minSimilarity) {
+
+        return ResponseEntity.ok(recipeService.getSimilarRecipes(id, limit, minSimilarity));
+    }
+
     @PostMapping("/{recipeId}/favorite")
     public ResponseEntity<Void> addToFavorites(
             @AuthenticationPrincipal User user,
@@ -66,9 +99,12 @@ public class RecipeController {
     }
 
     @GetMapping("/favorites")
-    public ResponseEntity<List<RecipeDTO>> getFavorites(@AuthenticationPrincipal User user) {
-        List<RecipeDTO> favorites = recipeService.getUserFavorites(user.getId());
-        return ResponseEntity.ok(favorites);
+    public ResponseEntity<List<RecipeSummaryDTO>> getFavorites(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<RecipeSummaryDTO> favorites = recipeService.getUserFavorites(user.getId(), cursor, size);
+        return CursorResponses.withNextCursor(favorites);
     }
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -93,7 +129,17 @@ public class RecipeController {
 
     @GetMapping("/admin/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<RecipeDTO>> getAllRecipesForAdmin() {
-        return ResponseEntity.ok(recipeService.getAllRecipesForAdmin());
+    public ResponseEntity<List<RecipeSummaryDTO>> getAllRecipesForAdmin(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return CursorResponses.withNextCursor(recipeService.getAllRecipesForAdmin(cursor, size));
+    }
+
+    @GetMapping(value = "/admin/export", produces = CatalogExportService.NDJSON)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportRecipes() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(CatalogExportService.NDJSON))
+                .body(catalogExportService::exportRecipes);
     }
 }
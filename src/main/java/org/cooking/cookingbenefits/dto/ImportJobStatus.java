@@ -0,0 +1,21 @@
+package org.cooking.cookingbenefits.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class ImportJobStatus {
+    private String id;
+    private String type;
+    private String state;
+    private long totalRecords;
+    private long validatedRecords;
+    private long writtenRecords;
+    // Строки, уже существовавшие в БД (продукты с тем же названием)
+    private long skippedRecords;
+    private List<String> errors;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
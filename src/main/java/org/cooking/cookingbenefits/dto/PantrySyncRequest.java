@@ -0,0 +1,20 @@
+package org.cooking.cookingbenefits.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+// Либо полный набор продуктов пользователя (productIds), либо изменения (add/remove), но не то и другое сразу
+@Data
+public class PantrySyncRequest {
+    @Size(max = 2000, message = "Слишком много продуктов")
+    private List<@NotNull(message = "Id продукта не может быть пустым") Long> productIds;
+
+    @Size(max = 2000, message = "Слишком много продуктов")
+    private List<@NotNull(message = "Id продукта не может быть пустым") Long> add;
+
+    @Size(max = 2000, message = "Слишком много продуктов")
+    private List<@NotNull(message = "Id продукта не может быть пустым") Long> remove;
+}
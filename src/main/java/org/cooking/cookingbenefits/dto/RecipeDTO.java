@@ -15,7 +15,9 @@ public class RecipeDTO {
     private String category;
     private String imageUrl;
     private Double matchPercentage;
+    private Double similarity;
     private List<String> missingIngredients;
+    private List<Long> missingProductIds;
     private List<IngredientDTO> ingredients;
     private Boolean isFavorite;
 
@@ -0,0 +1,20 @@
+package org.cooking.cookingbenefits.dto;
+
+import lombok.Data;
+import java.util.List;
+
+// Рецепт для списков: без описания, шагов приготовления и ингредиентов
+@Data
+public class RecipeSummaryDTO {
+    private Long id;
+    private String title;
+    private Integer cookingTimeMinutes;
+    private String difficulty;
+    private Integer servings;
+    private String category;
+    private String imageUrl;
+    private Double matchPercentage;
+    private List<String> missingIngredients;
+    private List<Long> missingProductIds;
+    private Boolean isFavorite;
+}
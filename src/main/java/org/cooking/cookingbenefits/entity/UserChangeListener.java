@@ -0,0 +1,20 @@
+package org.cooking.cookingbenefits.entity;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.cooking.cookingbenefits.event.UserChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+// Сообщает об изменении пользователя через JPA, чтобы кэш принципалов не зависел от того, кто меняет роль или активность
+@RequiredArgsConstructor
+public class UserChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+    }
+}
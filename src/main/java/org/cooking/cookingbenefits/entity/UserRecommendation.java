@@ -0,0 +1,32 @@
+package org.cooking.cookingbenefits.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "user_recommendations")
+@Data
+@NoArgsConstructor
+public class UserRecommendation {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Лучшие рецепты пользователя в порядке выдачи и их процент совпадения
+    @Column(name = "recipe_ids", nullable = false)
+    private Long[] recipeIds;
+
+    @Column(name = "match_percentages", nullable = false)
+    private Double[] matchPercentages;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    // Время последнего изменения продуктов, исключений, избранного или каталога
+    @Column(name = "changed_at")
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,4 @@
+package org.cooking.cookingbenefits.event;
+
+public record RecipeDeletedEvent(Long recipeId) {
+}
@@ -0,0 +1,6 @@
+package org.cooking.cookingbenefits.event;
+
+import java.util.Collection;
+
+public record RecipeSavedEvent(Long recipeId, boolean approved, Collection<Long> productIds) {
+}
@@ -1,10 +1,16 @@
 package org.cooking.cookingbenefits.repository;
 
+import jakarta.persistence.QueryHint;
 import org.cooking.cookingbenefits.entity.Product;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findByName(String name);
@@ -13,5 +19,24 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT p FROM Product p WHERE p.isCommon = true")
     List<Product> findCommonProducts();
+
+    // Сравнение кортежей (name, id) PostgreSQL отдает индексу, в отличие от развернутого OR
+    @Query("SELECT p FROM Product p WHERE (p.name, p.id) > (:afterName, :afterId) ORDER BY p.name, p.id")
+    List<Product> findPageAfter(@Param("afterName") String afterName, @Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.category AS category, p.isCommon AS isCommon " +
+            "FROM Product p ORDER BY p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ProductExportRow> streamForExport();
+
+    interface ProductExportRow {
+        Long getId();
+        String getName();
+        String getCategory();
+        Boolean getIsCommon();
+    }
 }
 
@@ -2,10 +2,32 @@ package org.cooking.cookingbenefits.repository;
 
 import org.cooking.cookingbenefits.entity.RecipeIngredient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface RecipeIngredientRepository extends JpaRepository<RecipeIngredient, Long> {
-    List<RecipeIngredient> findByRecipeId(Long recipeId);
+    @Query("SELECT ri FROM RecipeIngredient ri JOIN FETCH ri.product WHERE ri.recipe.id = :recipeId ORDER BY ri.id")
+    List<RecipeIngredient> findByRecipeId(@Param("recipeId") Long recipeId);
+
+    // Ингредиенты сразу нескольких рецептов вместе с продуктами одним запросом
+    @Query("SELECT ri FROM RecipeIngredient ri JOIN FETCH ri.product WHERE ri.recipe.id IN :recipeIds ORDER BY ri.id")
+    List<RecipeIngredient> findWithProductByRecipeIdIn(@Param("recipeIds") Collection<Long> recipeIds);
+
     void deleteByRecipeId(Long recipeId);
+
+    @Query("SELECT ri.recipe.id AS recipeId, ri.product.id AS productId FROM RecipeIngredient ri " +
+            "WHERE ri.recipe.isApproved = true")
+    List<RecipeProductRef> findApprovedRecipeProductRefs();
+
+    @Query("SELECT ri.recipe.id AS recipeId, ri.product.id AS productId FROM RecipeIngredient ri " +
+            "WHERE ri.recipe.id IN :recipeIds ORDER BY ri.product.id")
+    List<RecipeProductRef> findProductRefsByRecipeIdIn(@Param("recipeIds") Collection<Long> recipeIds);
+
+    interface RecipeProductRef {
+        Long getRecipeId();
+        Long getProductId();
+    }
 }
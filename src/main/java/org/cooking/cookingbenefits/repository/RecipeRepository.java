@@ -1,12 +1,20 @@
 package org.cooking.cookingbenefits.repository;
 
+import jakarta.persistence.QueryHint;
 import org.cooking.cookingbenefits.entity.Recipe;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface RecipeRepository extends JpaRepository<Recipe, Long> {
@@ -24,4 +32,120 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
 
     @Query("SELECT r FROM Recipe r WHERE r.isApproved = true")
     List<Recipe> findApprovedRecipes();
+
+    @Query("SELECT r.id FROM Recipe r WHERE r.isApproved = true")
+    List<Long> findApprovedRecipeIds();
+
+    // Списки читают только короткие колонки: TEXT-поля и ингредиенты не загружаются
+    String SUMMARY_COLUMNS = "r.id AS id, r.title AS title, r.cookingTimeMinutes AS cookingTimeMinutes, " +
+            "r.difficulty AS difficulty, r.servings AS servings, r.category AS category, r.imageUrl AS imageUrl";
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Recipe r WHERE r.id IN :ids")
+    List<RecipeSummaryView> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM Recipe r " +
+            "WHERE (r.title, r.id) > (:afterTitle, :afterId) ORDER BY r.title, r.id")
+    List<RecipeSummaryView> findSummaryPageAfter(@Param("afterTitle") String afterTitle,
+                                                 @Param("afterId") Long afterId,
+                                                 Limit limit);
+
+    // Выгрузка рецептов вместе с ингредиентами одним проходом курсора: строки одного рецепта идут подряд.
+    // Проекция не попадает в контекст персистентности, поэтому память не растет с объемом каталога
+    @Query("SELECT r.id AS recipeId, r.title AS title, r.description AS description, " +
+            "r.cookingSteps AS cookingSteps, r.cookingTimeMinutes AS cookingTimeMinutes, " +
+            "r.difficulty AS difficulty, r.servings AS servings, r.category AS category, r.imageUrl AS imageUrl, " +
+            "p.id AS productId, p.name AS productName, ri.quantity AS quantity, ri.unit AS unit " +
+            "FROM Recipe r LEFT JOIN r.ingredients ri LEFT JOIN ri.product p " +
+            "ORDER BY r.id, ri.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<RecipeExportRow> streamForExport();
+
+    // Полнотекстовый поиск по search_vector (GIN-индекс, миграция V2) с фильтром по продуктам.
+    // Если productIds не заданы, передается заглушка и hasProducts = false
+    String SEARCH_WHERE =
+            "FROM recipes r " +
+            "WHERE r.is_approved = true " +
+            "  AND (:query = '' OR r.search_vector @@ " +
+            "       (websearch_to_tsquery('russian', :query) || websearch_to_tsquery('english', :query))) " +
+            "  AND (:hasProducts = false OR (SELECT COUNT(DISTINCT ri.product_id) FROM recipe_ingredients ri " +
+            "       WHERE ri.recipe_id = r.id AND ri.product_id IN (:productIds)) >= GREATEST(:minIngredients, 1)) ";
+
+    @Query(value = "SELECT r.* " + SEARCH_WHERE +
+            "ORDER BY CASE WHEN :query = '' THEN 0 ELSE ts_rank(r.search_vector, " +
+            "         websearch_to_tsquery('russian', :query) || websearch_to_tsquery('english', :query)) END DESC, " +
+            "         r.id",
+            countQuery = "SELECT COUNT(*) " + SEARCH_WHERE,
+            nativeQuery = true)
+    Page<Recipe> searchFullText(@Param("query") String query,
+                                @Param("hasProducts") boolean hasProducts,
+                                @Param("productIds") List<Long> productIds,
+                                @Param("minIngredients") int minIngredients,
+                                Pageable pageable);
+
+    // Процент совпадения считается так же, как в RecommendationIndex.matchPercentage
+    @Query(value = "SELECT m.* FROM (" +
+            "  SELECT r.id AS \"recipeId\", " +
+            "         COUNT(ri.id) AS \"totalCount\", " +
+            "         COUNT(up.id) FILTER (WHERE ue.id IS NULL) AS \"availableCount\", " +
+            "         COUNT(ue.id) AS \"excludedCount\", " +
+            "         CAST(CASE WHEN COUNT(ri.id) = 0 THEN 0 " +
+            "              ELSE ROUND(CAST(100.0 * COUNT(up.id) FILTER (WHERE ue.id IS NULL) / COUNT(ri.id) " +
+            "                   * CASE WHEN COUNT(ue.id) > 0 THEN 0.5 ELSE 1 END AS numeric), 1) " +
+            "         END AS double precision) AS \"matchPercentage\", " +
+            "         EXISTS (SELECT 1 FROM user_favorites uf " +
+            "                 WHERE uf.user_id = :userId AND uf.recipe_id = r.id) AS \"isFavorite\" " +
+            "  FROM recipes r " +
+            "  LEFT JOIN recipe_ingredients ri ON ri.recipe_id = r.id " +
+            "  LEFT JOIN user_products up ON up.product_id = ri.product_id AND up.user_id = :userId " +
+            "  LEFT JOIN user_excluded_products ue ON ue.product_id = ri.product_id AND ue.user_id = :userId " +
+            "  WHERE r.is_approved = true " +
+            "  GROUP BY r.id" +
+            ") m " +
+            "WHERE m.\"matchPercentage\" < :afterMatch " +
+            "   OR (m.\"matchPercentage\" = :afterMatch AND m.\"recipeId\" > :afterId) " +
+            "ORDER BY m.\"matchPercentage\" DESC, m.\"recipeId\" " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<RecipeMatchView> findTopMatches(@Param("userId") Long userId,
+                                         @Param("afterMatch") double afterMatch,
+                                         @Param("afterId") long afterId,
+                                         @Param("limit") int limit);
+
+    interface RecipeSummaryView {
+        Long getId();
+        String getTitle();
+        Integer getCookingTimeMinutes();
+        String getDifficulty();
+        Integer getServings();
+        String getCategory();
+        String getImageUrl();
+    }
+
+    interface RecipeExportRow {
+        Long getRecipeId();
+        String getTitle();
+        String getDescription();
+        String getCookingSteps();
+        Integer getCookingTimeMinutes();
+        String getDifficulty();
+        Integer getServings();
+        String getCategory();
+        String getImageUrl();
+        Long getProductId();
+        String getProductName();
+        Double getQuantity();
+        String getUnit();
+    }
+
+    interface RecipeMatchView {
+        Long getRecipeId();
+        Long getTotalCount();
+        Long getAvailableCount();
+        Long getExcludedCount();
+        Double getMatchPercentage();
+        Boolean getIsFavorite();
+    }
 }
\ No newline at end of file
@@ -2,11 +2,16 @@ package org.cooking.cookingbenefits.repository;
 
 import org.cooking.cookingbenefits.entity.UserExcludedProduct;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface UserExcludedProductRepository extends JpaRepository<UserExcludedProduct, Long> {
     List<UserExcludedProduct> findByUserId(Long userId);
 
+    @Query("SELECT ue.product.id FROM UserExcludedProduct ue WHERE ue.user.id = :userId")
+    List<Long> findProductIdsByUserId(@Param("userId") Long userId);
+
     boolean existsByUserIdAndProductId(Long userId, Long productId);
 }
@@ -1,14 +1,34 @@
 package org.cooking.cookingbenefits.repository;
 
 import org.cooking.cookingbenefits.entity.UserFavorite;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
 public interface UserFavoriteRepository extends JpaRepository<UserFavorite, Long> {
     List<UserFavorite> findByUserId(Long userId);
+
+    @Query("SELECT uf.id AS favoriteId, " + RecipeRepository.SUMMARY_COLUMNS + " " +
+            "FROM UserFavorite uf JOIN uf.recipe r " +
+            "WHERE uf.user.id = :userId AND (r.title, uf.id) > (:afterTitle, :afterId) " +
+            "ORDER BY r.title, uf.id")
+    List<FavoriteSummaryView> findSummaryPageByUserIdAfter(@Param("userId") Long userId,
+                                                           @Param("afterTitle") String afterTitle,
+                                                           @Param("afterId") Long afterId,
+                                                           Limit limit);
+
+    @Query("SELECT uf.recipe.id FROM UserFavorite uf WHERE uf.user.id = :userId")
+    List<Long> findRecipeIdsByUserId(@Param("userId") Long userId);
+
     boolean existsByUserIdAndRecipeId(Long userId, Long recipeId);
     void deleteByUserIdAndRecipeId(Long userId, Long recipeId);
     void deleteByRecipeId(Long recipeId);
+
+    interface FavoriteSummaryView extends RecipeRepository.RecipeSummaryView {
+        Long getFavoriteId();
+    }
 }
\ No newline at end of file
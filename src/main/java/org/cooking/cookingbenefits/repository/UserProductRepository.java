@@ -1,14 +1,54 @@
 package org.cooking.cookingbenefits.repository;
 
 import org.cooking.cookingbenefits.entity.UserProduct;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface UserProductRepository extends JpaRepository<UserProduct, Long> {
     List<UserProduct> findByUserId(Long userId);
 
-    boolean existsByUserIdAndProductId(Long userId, Long productId);
+    @Query("SELECT up FROM UserProduct up JOIN FETCH up.product p " +
+            "WHERE up.user.id = :userId AND (p.name, up.id) > (:afterName, :afterId) " +
+            "ORDER BY p.name, up.id")
+    List<UserProduct> findPageByUserIdAfter(@Param("userId") Long userId,
+                                            @Param("afterName") String afterName,
+                                            @Param("afterId") Long afterId,
+                                            Limit limit);
 
-    void deleteByUserIdAndProductId(Long userId, Long productId);
+    @Query("SELECT up.product.id FROM UserProduct up WHERE up.user.id = :userId")
+    List<Long> findProductIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT up FROM UserProduct up JOIN FETCH up.product p WHERE up.user.id = :userId ORDER BY p.name, up.id")
+    List<UserProduct> findWithProductByUserId(@Param("userId") Long userId);
+
+    // Несуществующие продукты отсекаются соединением с products, уже добавленные - ON CONFLICT
+    @Modifying
+    @Query(value = "INSERT INTO user_products (user_id, product_id, added_at) " +
+            "SELECT :userId, p.id, now() FROM products p WHERE p.id = ANY(:productIds) " +
+            "ON CONFLICT (user_id, product_id) DO NOTHING",
+            nativeQuery = true)
+    int insertMissing(@Param("userId") Long userId, @Param("productIds") Long[] productIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_products WHERE user_id = :userId AND product_id = ANY(:productIds)",
+            nativeQuery = true)
+    int deleteByUserIdAndProductIds(@Param("userId") Long userId, @Param("productIds") Long[] productIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_products WHERE user_id = :userId AND NOT (product_id = ANY(:productIds))",
+            nativeQuery = true)
+    int deleteByUserIdExceptProductIds(@Param("userId") Long userId, @Param("productIds") Long[] productIds);
+
+    @Query("SELECT up.product.id AS productId, COUNT(up) AS userCount FROM UserProduct up GROUP BY up.product.id")
+    List<ProductPopularity> countUsersByProduct();
+
+    interface ProductPopularity {
+        Long getProductId();
+        Long getUserCount();
+    }
 }
@@ -0,0 +1,39 @@
+package org.cooking.cookingbenefits.repository;
+
+import org.cooking.cookingbenefits.entity.UserRecommendation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserRecommendationRepository extends JpaRepository<UserRecommendation, Long> {
+
+    // Запись пользователя, если она посчитана после последнего изменения каталога
+    @Query(value = "SELECT ur.* FROM user_recommendations ur " +
+            "JOIN recommendation_catalog rc ON rc.id = 1 " +
+            "WHERE ur.user_id = :userId AND ur.computed_at > rc.changed_at",
+            nativeQuery = true)
+    Optional<UserRecommendation> findCurrentByUserId(@Param("userId") Long userId);
+
+    @Query(value = "SELECT ur.user_id FROM user_recommendations ur " +
+            "JOIN recommendation_catalog rc ON rc.id = 1 " +
+            "WHERE ur.changed_at >= ur.computed_at OR ur.computed_at <= rc.changed_at",
+            nativeQuery = true)
+    List<Long> findStaleUserIds();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserRecommendation ur SET ur.changedAt = :changedAt WHERE ur.userId = :userId")
+    void markChanged(@Param("userId") Long userId, @Param("changedAt") LocalDateTime changedAt);
+
+    // Изменение каталога - одна строка, а не отметка во всех записях
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE recommendation_catalog SET changed_at = :changedAt WHERE id = 1", nativeQuery = true)
+    void markCatalogChanged(@Param("changedAt") LocalDateTime changedAt);
+}
@@ -2,7 +2,12 @@ package org.cooking.cookingbenefits.repository;
 
 import org.cooking.cookingbenefits.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -10,4 +15,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
 
+    @Query("SELECT u.id FROM User u WHERE u.isActive = true AND u.lastLoginAt >= :since ORDER BY u.id")
+    List<Long> findActiveUserIdsSince(@Param("since") LocalDateTime since);
+
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package org.cooking.cookingbenefits.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,7 +11,6 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -20,7 +21,7 @@ import java.io.IOException;
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtTokenUtil jwtTokenUtil;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(
@@ -30,7 +31,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
+        final Claims claims;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -38,12 +39,18 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtTokenUtil.extractUsername(jwt);
+        try {
+            claims = jwtTokenUtil.parseClaims(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Неверный или просроченный токен: запрос идет дальше без аутентификации и получает 401
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+        if (claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = principalOf(claims);
 
-            if (jwtTokenUtil.validateToken(jwt, userDetails)) {
+            if (userDetails != null && userDetails.isEnabled()) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -56,4 +63,23 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // Роль и активность берутся из users через кэш, а не из claims. Токен не принимается,
+    // если после его выпуска изменились учетные данные (версия в users ушла вперед).
+    // Старые токены без uid проверяются по email. null - пользователя нет или токен отозван
+    private UserDetails principalOf(Claims claims) {
+        Long userId = claims.get(JwtTokenUtil.CLAIM_USER_ID, Long.class);
+        if (userId == null) {
+            return principalCache.getByEmail(claims.getSubject());
+        }
+        PrincipalSnapshot principal = principalCache.get(userId);
+        if (principal == null) {
+            return null;
+        }
+        Integer tokenVersion = claims.get(JwtTokenUtil.CLAIM_TOKEN_VERSION, Integer.class);
+        if ((tokenVersion != null ? tokenVersion : 0) != principal.tokenVersion()) {
+            return null;
+        }
+        return principal.toUser();
+    }
+}
@@ -0,0 +1,109 @@
+package org.cooking.cookingbenefits.security;
+
+import org.cooking.cookingbenefits.cache.BoundedTtlCache;
+import org.cooking.cookingbenefits.cache.CacheStats;
+import org.cooking.cookingbenefits.entity.User;
+import org.cooking.cookingbenefits.event.UserChangedEvent;
+import org.cooking.cookingbenefits.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Кэш пользователей для проверки JWT, чтобы не читать users на каждый запрос.
+ * Ключ - id пользователя, поэтому смена email не оставляет запись под старым адресом.
+ * Хранятся неизменяемые {@link PrincipalSnapshot}, запросу отдается новый экземпляр User.
+ * <p>
+ * Кэш только ускоряет чтение: роль, активность и версия токенов берутся из users.
+ * Изменение через JPA сбрасывает запись на этом узле сразу после коммита; изменения
+ * в обход JPA и на других узлах становятся видны не позже чем через TTL.
+ * Записи разбиты на сегменты по id, чтобы запросы разных пользователей не ждали одну блокировку.
+ */
+@Component
+public class PrincipalCache {
+
+    private static final int SEGMENTS = 16;
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final UserRepository userRepository;
+    private final BoundedTtlCache<Long, PrincipalSnapshot>[] segments;
+    private final int maxSize;
+
+    // Счетчики сбросов по полосам id: пользователь, загруженный во время сброса своей полосы,
+    // не кэшируется, а изменение одного пользователя не мешает кэшировать остальных
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    @SuppressWarnings("unchecked")
+    public PrincipalCache(
+            UserRepository userRepository,
+            @Value("${app.security.principal-cache.max-size:10000}") int maxSize,
+            @Value("${app.security.principal-cache.ttl:60s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.maxSize = maxSize;
+        this.segments = new BoundedTtlCache[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new BoundedTtlCache<>(Math.max(1, maxSize / SEGMENTS), ttl);
+        }
+    }
+
+    // null, если пользователя больше нет
+    public PrincipalSnapshot get(Long userId) {
+        BoundedTtlCache<Long, PrincipalSnapshot> segment = segment(userId);
+        PrincipalSnapshot cached = segment.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(userId);
+        long version = invalidations.get(stripe);
+        PrincipalSnapshot loaded = userRepository.findById(userId).map(PrincipalSnapshot::of).orElse(null);
+        if (loaded != null && invalidations.get(stripe) == version) {
+            segment.put(userId, loaded);
+            // Сброс между проверкой и записью: счетчик растет до очистки, повторная проверка его ловит
+            if (invalidations.get(stripe) != version) {
+                segment.invalidate(userId);
+            }
+        }
+        return loaded;
+    }
+
+    // Старые токены без id пользователя: чтение по email без кэша, до истечения их срока
+    public User getByEmail(String email) {
+        return userRepository.findByEmail(email).map(PrincipalSnapshot::of).map(PrincipalSnapshot::toUser).orElse(null);
+    }
+
+    public void invalidate(Long userId) {
+        invalidations.incrementAndGet(stripe(userId));
+        segment(userId).invalidate(userId);
+    }
+
+    public CacheStats stats() {
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        int size = 0;
+        for (BoundedTtlCache<Long, PrincipalSnapshot> segment : segments) {
+            CacheStats stats = segment.stats();
+            hits += stats.hits();
+            misses += stats.misses();
+            evictions += stats.evictions();
+            size += stats.size();
+        }
+        return new CacheStats(hits, misses, evictions, size, maxSize);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    private static int stripe(Long userId) {
+        return Math.floorMod(Long.hashCode(userId), INVALIDATION_STRIPES);
+    }
+
+    private BoundedTtlCache<Long, PrincipalSnapshot> segment(Long userId) {
+        return segments[Math.floorMod(Long.hashCode(userId), SEGMENTS)];
+    }
+}
@@ -0,0 +1,25 @@
+package org.cooking.cookingbenefits.security;
+
+import org.cooking.cookingbenefits.entity.User;
+
+/**
+ * Неизменяемая копия полей пользователя, нужных для аутентификации. В кэше хранится она,
+ * а не сущность: каждый запрос получает свой экземпляр User и не может изменить общий.
+ */
+public record PrincipalSnapshot(Long id, String email, String role, boolean active, int tokenVersion) {
+
+    static PrincipalSnapshot of(User user) {
+        return new PrincipalSnapshot(user.getId(), user.getEmail(), user.getRole(),
+                Boolean.TRUE.equals(user.getIsActive()), user.getTokenVersion() != null ? user.getTokenVersion() : 0);
+    }
+
+    User toUser() {
+        return User.builder()
+                .id(id)
+                .email(email)
+                .role(role)
+                .isActive(active)
+                .tokenVersion(tokenVersion)
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package org.cooking.cookingbenefits.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cooking.cookingbenefits.dto.ProductDTO;
+import org.cooking.cookingbenefits.dto.RecipeDTO;
+import org.cooking.cookingbenefits.repository.ProductRepository;
+import org.cooking.cookingbenefits.repository.RecipeRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка каталога в NDJSON: по одному JSON-объекту на строку.
+ * Данные читаются курсором БД и пишутся в ответ по мере чтения, в памяти
+ * находится только текущий рецепт. Курсор PostgreSQL работает только внутри транзакции,
+ * поэтому методы вызываются из потока записи ответа через прокси сервиса.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogExportService {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final RecipeRepository recipeRepository;
+    private final ProductRepository productRepository;
+    private final JsonMapper jsonMapper;
+
+    @Transactional(readOnly = true)
+    public void exportRecipes(OutputStream out) throws IOException {
+        int written = 0;
+        try (Stream<RecipeRepository.RecipeExportRow> rows = recipeRepository.streamForExport()) {
+            Iterator<RecipeRepository.RecipeExportRow> iterator = rows.iterator();
+            RecipeDTO current = null;
+            while (iterator.hasNext()) {
+                RecipeRepository.RecipeExportRow row = iterator.next();
+                if (current == null || !current.getId().equals(row.getRecipeId())) {
+                    if (current != null) {
+                        writeLine(out, current, ++written);
+                    }
+                    current = toRecipeDTO(row);
+                }
+                if (row.getProductId() != null) {
+                    current.getIngredients().add(toIngredientDTO(row));
+                }
+            }
+            if (current != null) {
+                writeLine(out, current, ++written);
+            }
+        }
+        out.flush();
+        log.info("Выгрузка рецептов завершена: {}", written);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportProducts(OutputStream out) throws IOException {
+        int written = 0;
+        try (Stream<ProductRepository.ProductExportRow> rows = productRepository.streamForExport()) {
+            Iterator<ProductRepository.ProductExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ProductRepository.ProductExportRow row = iterator.next();
+                ProductDTO dto = new ProductDTO();
+                dto.setId(row.getId());
+                dto.setName(row.getName());
+                dto.setCategory(row.getCategory());
+                dto.setIsCommon(row.getIsCommon());
+                writeLine(out, dto, ++written);
+            }
+        }
+        out.flush();
+        log.info("Выгрузка продуктов завершена: {}", written);
+    }
+
+    private void writeLine(OutputStream out, Object value, int written) throws IOException {
+        out.write(jsonMapper.writeValueAsBytes(value));
+        out.write('\n');
+        if (written % FLUSH_EVERY == 0) {
+            out.flush();
+        }
+    }
+
+    private static RecipeDTO toRecipeDTO(RecipeRepository.RecipeExportRow row) {
+        RecipeDTO dto = new RecipeDTO();
+        dto.setId(row.getRecipeId());
+        dto.setTitle(row.getTitle());
+        dto.setDescription(row.getDescription());
+        dto.setCookingSteps(row.getCookingSteps());
+        dto.setCookingTimeMinutes(row.getCookingTimeMinutes());
+        dto.setDifficulty(row.getDifficulty());
+        dto.setServings(row.getServings());
+        dto.setCategory(row.getCategory());
+        dto.setImageUrl(row.getImageUrl());
+        dto.setIngredients(new ArrayList<>());
+        return dto;
+    }
+
+    private static RecipeDTO.IngredientDTO toIngredientDTO(RecipeRepository.RecipeExportRow row) {
+        RecipeDTO.IngredientDTO dto = new RecipeDTO.IngredientDTO();
+        dto.setProductId(row.getProductId());
+        dto.setProductName(row.getProductName());
+        dto.setQuantity(row.getQuantity());
+        dto.setUnit(row.getUnit());
+        return dto;
+    }
+}
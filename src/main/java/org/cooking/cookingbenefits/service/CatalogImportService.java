@@ -0,0 +1,568 @@
+package org.cooking.cookingbenefits.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cooking.cookingbenefits.dto.ImportJobStatus;
+import org.cooking.cookingbenefits.dto.ProductDTO;
+import org.cooking.cookingbenefits.dto.RecipeDTO;
+import org.cooking.cookingbenefits.event.CatalogImportedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Массовый импорт продуктов и рецептов из файла (NDJSON, для продуктов также CSV).
+ * Файл читается потоково в несколько проходов: сначала проверка строк и сбор ссылок на продукты,
+ * затем разрешение названий продуктов в id пачками, затем запись (продукты - одной вставкой из
+ * массивов на пачку, рецепты - пакетными INSERT) с коммитом каждые {@code chunkSize} записей. Импорт не атомарен: при сбое на записи уже
+ * зафиксированные пачки остаются в БД, задача получает статус PARTIALLY_IMPORTED, а событие
+ * об импорте публикуется для всего записанного. Id рецептов выделяются из последовательности
+ * одним запросом на пачку, поэтому ингредиенты пишутся без чтения сгенерированных ключей.
+ * Импорты выполняются по одному в фоне, ход выполнения доступен по id задачи.
+ */
+@Slf4j
+@Service
+public class CatalogImportService {
+
+    public static final String PRODUCTS = "products";
+    public static final String RECIPES = "recipes";
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int LOOKUP_CHUNK = 1000;
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofDays(1);
+
+    // Одна вставка на пачку из массивов: число строк в ответе - действительно добавленные продукты.
+    // Пакетный INSERT так не умеет: с reWriteBatchedInserts драйвер отдает SUCCESS_NO_INFO на каждую строку
+    private static final String INSERT_PRODUCTS_SQL =
+            "INSERT INTO products (name, category, is_common) " +
+            "SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::boolean[]) ON CONFLICT (name) DO NOTHING";
+    private static final String ALLOCATE_RECIPE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('recipes', 'id')) FROM generate_series(1, ?)";
+    private static final String INSERT_RECIPE_SQL =
+            "INSERT INTO recipes (id, title, description, cooking_steps, cooking_time_minutes, difficulty, " +
+            "servings, category, image_url, is_approved, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, true, ?)";
+    private static final String INSERT_INGREDIENT_SQL =
+            "INSERT INTO recipe_ingredients (recipe_id, product_id, quantity, unit) VALUES (?, ?, ?, ?)";
+
+    private static final int[] RECIPE_TYPES = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.INTEGER, Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP};
+    private static final int[] INGREDIENT_TYPES = {Types.BIGINT, Types.BIGINT, Types.DOUBLE, Types.VARCHAR};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogImportService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            JsonMapper jsonMapper,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.import.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.jsonMapper = jsonMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportJobStatus startProductImport(MultipartFile file) {
+        String filename = file.getOriginalFilename();
+        boolean csv = "text/csv".equals(file.getContentType())
+                || (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".csv"));
+        return start(PRODUCTS, file, (job, path) -> importProducts(job, path, csv));
+    }
+
+    public ImportJobStatus startRecipeImport(MultipartFile file) {
+        return start(RECIPES, file, this::importRecipes);
+    }
+
+    public Optional<ImportJobStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::toStatus);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private ImportJobStatus start(String type, MultipartFile file, ImportTask task) {
+        pruneFinishedJobs();
+        Job job = new Job(UUID.randomUUID().toString(), type);
+        Path path;
+        try {
+            // Файл сохраняется на диск: проходов по нему несколько, а запрос завершится раньше импорта
+            path = Files.createTempFile("catalog-import-", ".upload");
+            file.transferTo(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось сохранить файл импорта", e);
+        }
+        jobs.put(job.id, job);
+        executor.submit(() -> run(job, path, task));
+        log.info("Импорт {} поставлен в очередь: {}", type, job.id);
+        return job.toStatus();
+    }
+
+    private void run(Job job, Path path, ImportTask task) {
+        try {
+            task.run(job, path);
+        } catch (Exception e) {
+            log.error("Ошибка импорта {}", job.id, e);
+            long written = job.written.get();
+            if (written > 0) {
+                job.addError("Импорт прерван: " + e.getMessage() + ". Уже записанные пачки (" + written
+                        + " записей) зафиксированы и не откатываются");
+                job.finish(State.PARTIALLY_IMPORTED);
+            } else {
+                job.addError("Импорт прерван: " + e.getMessage());
+                job.finish(State.FAILED);
+            }
+        } finally {
+            // Индексы и кэши перестраиваются по любым зафиксированным записям, в том числе после сбоя
+            long written = job.written.get();
+            if (written > 0) {
+                eventPublisher.publishEvent(PRODUCTS.equals(job.type)
+                        ? new CatalogImportedEvent(written, 0)
+                        : new CatalogImportedEvent(0, written));
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Не удалось удалить файл импорта {}", path);
+            }
+        }
+    }
+
+    // ---------- Продукты ----------
+
+    private void importProducts(Job job, Path path, boolean csv) throws IOException {
+        job.state = State.VALIDATING;
+        forEachLine(path, (lineNumber, line) -> {
+            if (csv && isCsvHeader(lineNumber, line)) {
+                return;
+            }
+            ProductDTO product = parseProduct(job, lineNumber, line, csv);
+            if (product != null) {
+                job.validated.incrementAndGet();
+            }
+        });
+        if (job.hasErrors()) {
+            job.finish(State.FAILED);
+            return;
+        }
+
+        job.total.set(job.validated.get());
+        job.state = State.IMPORTING;
+        List<ProductDTO> chunk = new ArrayList<>(chunkSize);
+        forEachLine(path, (lineNumber, line) -> {
+            if (csv && isCsvHeader(lineNumber, line)) {
+                return;
+            }
+            chunk.add(parseProduct(job, lineNumber, line, csv));
+            if (chunk.size() == chunkSize) {
+                writeProducts(job, chunk);
+            }
+        });
+        writeProducts(job, chunk);
+
+        job.finish(State.DONE);
+        log.info("Импорт продуктов {} завершен: добавлено {}, пропущено существующих {}",
+                job.id, job.written.get(), job.skipped.get());
+    }
+
+    // Существующие названия пропускаются, а не считаются ошибкой: импорт можно повторять
+    private void writeProducts(Job job, List<ProductDTO> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        String[] names = new String[chunk.size()];
+        String[] categories = new String[chunk.size()];
+        Boolean[] common = new Boolean[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            ProductDTO product = chunk.get(i);
+            names[i] = product.getName().trim();
+            categories[i] = product.getCategory().trim();
+            common[i] = product.getIsCommon() != null ? product.getIsCommon() : Boolean.TRUE;
+        }
+        int inserted = transactionTemplate.execute(status -> jdbcTemplate.update(INSERT_PRODUCTS_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("varchar", names));
+            ps.setArray(2, ps.getConnection().createArrayOf("varchar", categories));
+            ps.setArray(3, ps.getConnection().createArrayOf("boolean", common));
+        }));
+        job.written.addAndGet(inserted);
+        job.skipped.addAndGet(chunk.size() - inserted);
+        chunk.clear();
+    }
+
+    private ProductDTO parseProduct(Job job, int lineNumber, String line, boolean csv) {
+        ProductDTO product;
+        if (csv) {
+            List<String> fields = splitCsv(line);
+            product = new ProductDTO();
+            product.setName(fields.size() > 0 ? fields.get(0) : null);
+            product.setCategory(fields.size() > 1 ? fields.get(1) : null);
+            if (fields.size() > 2 && !fields.get(2).isBlank()) {
+                product.setIsCommon(Boolean.parseBoolean(fields.get(2).trim()));
+            }
+        } else {
+            product = readJson(job, lineNumber, line, ProductDTO.class);
+            if (product == null) {
+                return null;
+            }
+        }
+        if (isBlank(product.getName()) || product.getName().length() > 255) {
+            job.addError("Строка " + lineNumber + ": пустое или слишком длинное название продукта");
+            return null;
+        }
+        if (isBlank(product.getCategory()) || product.getCategory().length() > 255) {
+            job.addError("Строка " + lineNumber + ": не указана категория продукта");
+            return null;
+        }
+        return product;
+    }
+
+    // ---------- Рецепты ----------
+
+    private void importRecipes(Job job, Path path) throws IOException {
+        // Проход 1: формат строк и сбор ссылок на продукты
+        job.state = State.VALIDATING;
+        Set<String> productNames = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        forEachLine(path, (lineNumber, line) -> {
+            RecipeDTO recipe = parseRecipe(job, lineNumber, line);
+            if (recipe != null) {
+                for (RecipeDTO.IngredientDTO ingredient : recipe.getIngredients()) {
+                    if (ingredient.getProductId() != null) {
+                        productIds.add(ingredient.getProductId());
+                    } else {
+                        productNames.add(ingredient.getProductName().trim());
+                    }
+                }
+            }
+        });
+        if (job.hasErrors()) {
+            job.finish(State.FAILED);
+            return;
+        }
+
+        Map<String, Long> idsByName = resolveProductNames(productNames);
+        Set<Long> knownIds = findExistingProductIds(productIds);
+
+        // Проход 2: все продукты существуют и не повторяются внутри рецепта
+        forEachLine(path, (lineNumber, line) -> {
+            RecipeDTO recipe = parseRecipe(job, lineNumber, line);
+            if (recipe != null && resolveIngredients(job, lineNumber, recipe, idsByName, knownIds) != null) {
+                job.validated.incrementAndGet();
+            }
+        });
+        if (job.hasErrors()) {
+            job.finish(State.FAILED);
+            return;
+        }
+
+        // Проход 3: запись пачками
+        job.total.set(job.validated.get());
+        job.state = State.IMPORTING;
+        List<RecipeDTO> chunk = new ArrayList<>(chunkSize);
+        List<long[]> chunkProducts = new ArrayList<>(chunkSize);
+        forEachLine(path, (lineNumber, line) -> {
+            RecipeDTO recipe = parseRecipe(job, lineNumber, line);
+            chunk.add(recipe);
+            chunkProducts.add(resolveIngredients(job, lineNumber, recipe, idsByName, knownIds));
+            if (chunk.size() == chunkSize) {
+                writeRecipes(job, chunk, chunkProducts);
+            }
+        });
+        writeRecipes(job, chunk, chunkProducts);
+
+        job.finish(State.DONE);
+        log.info("Импорт рецептов {} завершен: {} рецептов", job.id, job.written.get());
+    }
+
+    private void writeRecipes(Job job, List<RecipeDTO> chunk, List<long[]> chunkProducts) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(ALLOCATE_RECIPE_IDS_SQL, Long.class, chunk.size());
+
+            List<Object[]> recipeRows = new ArrayList<>(chunk.size());
+            List<Object[]> ingredientRows = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                RecipeDTO recipe = chunk.get(i);
+                Long recipeId = ids.get(i);
+                recipeRows.add(new Object[]{recipeId, recipe.getTitle().trim(), recipe.getDescription(),
+                        recipe.getCookingSteps(), recipe.getCookingTimeMinutes(),
+                        recipe.getDifficulty() != null ? recipe.getDifficulty() : "medium",
+                        recipe.getServings() != null ? recipe.getServings() : 2,
+                        recipe.getCategory(), recipe.getImageUrl(), createdAt});
+
+                long[] products = chunkProducts.get(i);
+                List<RecipeDTO.IngredientDTO> ingredients = recipe.getIngredients();
+                for (int j = 0; j < ingredients.size(); j++) {
+                    RecipeDTO.IngredientDTO ingredient = ingredients.get(j);
+                    ingredientRows.add(new Object[]{recipeId, products[j], ingredient.getQuantity(),
+                            ingredient.getUnit().trim()});
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_RECIPE_SQL, recipeRows, RECIPE_TYPES);
+            jdbcTemplate.batchUpdate(INSERT_INGREDIENT_SQL, ingredientRows, INGREDIENT_TYPES);
+        });
+        job.written.addAndGet(chunk.size());
+        chunk.clear();
+        chunkProducts.clear();
+    }
+
+    private RecipeDTO parseRecipe(Job job, int lineNumber, String line) {
+        RecipeDTO recipe = readJson(job, lineNumber, line, RecipeDTO.class);
+        if (recipe == null) {
+            return null;
+        }
+        if (isBlank(recipe.getTitle()) || recipe.getTitle().length() > 255) {
+            job.addError("Строка " + lineNumber + ": пустое или слишком длинное название рецепта");
+            return null;
+        }
+        if (isBlank(recipe.getCookingSteps())) {
+            job.addError("Строка " + lineNumber + ": не указаны шаги приготовления");
+            return null;
+        }
+        if (recipe.getIngredients() == null) {
+            recipe.setIngredients(new ArrayList<>());
+        }
+        for (RecipeDTO.IngredientDTO ingredient : recipe.getIngredients()) {
+            if (ingredient.getProductId() == null && isBlank(ingredient.getProductName())) {
+                job.addError("Строка " + lineNumber + ": у ингредиента не указан продукт");
+                return null;
+            }
+            if (ingredient.getQuantity() == null || ingredient.getQuantity() <= 0) {
+                job.addError("Строка " + lineNumber + ": количество ингредиента должно быть положительным");
+                return null;
+            }
+            if (isBlank(ingredient.getUnit()) || ingredient.getUnit().trim().length() > 20) {
+                job.addError("Строка " + lineNumber + ": некорректная единица измерения");
+                return null;
+            }
+        }
+        return recipe;
+    }
+
+    // id продуктов в порядке ингредиентов рецепта или null, если рецепт ссылается на неизвестный продукт
+    private long[] resolveIngredients(Job job, int lineNumber, RecipeDTO recipe,
+                                      Map<String, Long> idsByName, Set<Long> knownIds) {
+        List<RecipeDTO.IngredientDTO> ingredients = recipe.getIngredients();
+        long[] products = new long[ingredients.size()];
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < ingredients.size(); i++) {
+            RecipeDTO.IngredientDTO ingredient = ingredients.get(i);
+            Long productId = ingredient.getProductId() != null
+                    ? (knownIds.contains(ingredient.getProductId()) ? ingredient.getProductId() : null)
+                    : idsByName.get(ingredient.getProductName().trim());
+            if (productId == null) {
+                job.addError("Строка " + lineNumber + ": продукт не найден: "
+                        + (ingredient.getProductId() != null ? ingredient.getProductId() : ingredient.getProductName()));
+                return null;
+            }
+            if (!seen.add(productId)) {
+                job.addError("Строка " + lineNumber + ": продукт повторяется в рецепте: " + productId);
+                return null;
+            }
+            products[i] = productId;
+        }
+        return products;
+    }
+
+    private Map<String, Long> resolveProductNames(Set<String> names) {
+        Map<String, Long> idsByName = new HashMap<>();
+        for (List<String> chunk : chunks(new ArrayList<>(names))) {
+            jdbcTemplate.query("SELECT id, name FROM products WHERE name = ANY(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", chunk.toArray())),
+                    rs -> {
+                        idsByName.put(rs.getString("name"), rs.getLong("id"));
+                    });
+        }
+        return idsByName;
+    }
+
+    private Set<Long> findExistingProductIds(Set<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(ids))) {
+            jdbcTemplate.query("SELECT id FROM products WHERE id = ANY(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", chunk.toArray())),
+                    rs -> {
+                        existing.add(rs.getLong("id"));
+                    });
+        }
+        return existing;
+    }
+
+    // ---------- Общее ----------
+
+    private <T> T readJson(Job job, int lineNumber, String line, Class<T> type) {
+        try {
+            return jsonMapper.readValue(line, type);
+        } catch (JacksonException e) {
+            job.addError("Строка " + lineNumber + ": некорректный JSON");
+            return null;
+        }
+    }
+
+    private static void forEachLine(Path path, LineHandler handler) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (!line.isBlank()) {
+                    handler.accept(lineNumber, line);
+                }
+            }
+        }
+    }
+
+    private static boolean isCsvHeader(int lineNumber, String line) {
+        return lineNumber == 1 && line.trim().toLowerCase(Locale.ROOT).startsWith("name");
+    }
+
+    // Поля через запятую, значения в кавычках могут содержать запятые и удвоенные кавычки
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += LOOKUP_CHUNK) {
+            chunks.add(values.subList(from, Math.min(values.size(), from + LOOKUP_CHUNK)));
+        }
+        return chunks;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    @FunctionalInterface
+    private interface LineHandler {
+        void accept(int lineNumber, String line);
+    }
+
+    @FunctionalInterface
+    private interface ImportTask {
+        void run(Job job, Path path) throws IOException;
+    }
+
+    private enum State {
+        QUEUED, VALIDATING, IMPORTING, DONE, PARTIALLY_IMPORTED, FAILED
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final String type;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong validated = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile State state = State.QUEUED;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(String id, String type) {
+            this.id = id;
+            this.type = type;
+        }
+
+        // Хранятся только первые ошибки, чтобы плохой файл не занял всю память
+        void addError(String error) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        boolean hasErrors() {
+            return !errors.isEmpty();
+        }
+
+        void finish(State finalState) {
+            state = finalState;
+            finishedAt = LocalDateTime.now();
+        }
+
+        ImportJobStatus toStatus() {
+            ImportJobStatus status = new ImportJobStatus();
+            status.setId(id);
+            status.setType(type);
+            status.setState(state.name());
+            status.setTotalRecords(total.get());
+            status.setValidatedRecords(validated.get());
+            status.setWrittenRecords(written.get());
+            status.setSkippedRecords(skipped.get());
+            synchronized (errors) {
+                status.setErrors(new ArrayList<>(errors));
+            }
+            status.setStartedAt(startedAt);
+            status.setFinishedAt(finishedAt);
+            return status;
+        }
+    }
+}
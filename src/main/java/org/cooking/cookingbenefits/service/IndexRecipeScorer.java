@@ -0,0 +1,52 @@
+package org.cooking.cookingbenefits.service;
+
+import org.cooking.cookingbenefits.repository.RecipeRepository;
+import org.cooking.cookingbenefits.repository.UserExcludedProductRepository;
+import org.cooking.cookingbenefits.repository.UserFavoriteRepository;
+import org.cooking.cookingbenefits.repository.UserProductRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Пока индекс не построен, расчет идет тем же запросом, что и у SqlRecipeScorer
+@Component
+@ConditionalOnProperty(name = "app.recommendations.scorer", havingValue = "index", matchIfMissing = true)
+public class IndexRecipeScorer implements RecipeScorer {
+
+    private final RecommendationIndex recommendationIndex;
+    private final UserProductRepository userProductRepository;
+    private final UserExcludedProductRepository userExclusionRepository;
+    private final UserFavoriteRepository userFavoriteRepository;
+    private final SqlRecipeScorer fallback;
+
+    public IndexRecipeScorer(RecommendationIndex recommendationIndex,
+                             RecipeRepository recipeRepository,
+                             UserProductRepository userProductRepository,
+                             UserExcludedProductRepository userExclusionRepository,
+                             UserFavoriteRepository userFavoriteRepository) {
+        this.recommendationIndex = recommendationIndex;
+        this.userProductRepository = userProductRepository;
+        this.userExclusionRepository = userExclusionRepository;
+        this.userFavoriteRepository = userFavoriteRepository;
+        this.fallback = new SqlRecipeScorer(recipeRepository, userProductRepository);
+    }
+
+    @Override
+    public ScoredRecipes topScores(Long userId, int limit, RecipeScore after) {
+        if (!recommendationIndex.isReady()) {
+            return fallback.topScores(userId, limit, after);
+        }
+        Set<Long> availableProductIds = new HashSet<>(userProductRepository.findProductIdsByUserId(userId));
+        Set<Long> excludedProductIds = new HashSet<>(userExclusionRepository.findProductIdsByUserId(userId));
+
+        List<RecipeScore> scores = recommendationIndex.topScores(availableProductIds, excludedProductIds, limit, after);
+        if (scores.isEmpty()) {
+            return new ScoredRecipes(scores, Set.of(), availableProductIds);
+        }
+        return new ScoredRecipes(scores, new HashSet<>(userFavoriteRepository.findRecipeIdsByUserId(userId)),
+                availableProductIds);
+    }
+}
@@ -0,0 +1,48 @@
+package org.cooking.cookingbenefits.service;
+
+import org.cooking.cookingbenefits.dto.RecipeDTO;
+import org.cooking.cookingbenefits.entity.RecipeIngredient;
+
+import java.util.*;
+
+/**
+ * Разница между текущими ингредиентами рецепта и присланными в запросе.
+ * Ингредиенты сопоставляются по продукту: совпавшие с теми же количеством и единицей
+ * не трогаются, измененные обновляются на месте, остальные вставляются или удаляются.
+ */
+record IngredientChanges(List<RecipeDTO.IngredientDTO> inserts,
+                         List<Update> updates,
+                         List<RecipeIngredient> deletes) {
+
+    static IngredientChanges between(Collection<RecipeIngredient> existing,
+                                     Collection<RecipeDTO.IngredientDTO> desired) {
+        Map<Long, RecipeIngredient> existingByProduct = new HashMap<>();
+        for (RecipeIngredient ingredient : existing) {
+            existingByProduct.put(ingredient.getProduct().getId(), ingredient);
+        }
+
+        List<RecipeDTO.IngredientDTO> inserts = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (RecipeDTO.IngredientDTO dto : desired) {
+            if (!seen.add(dto.getProductId())) {
+                throw new RuntimeException("Продукт указан в рецепте несколько раз: " + dto.getProductId());
+            }
+            RecipeIngredient current = existingByProduct.remove(dto.getProductId());
+            if (current == null) {
+                inserts.add(dto);
+            } else if (!Objects.equals(current.getQuantity(), dto.getQuantity())
+                    || !Objects.equals(current.getUnit(), dto.getUnit())) {
+                updates.add(new Update(current, dto.getQuantity(), dto.getUnit()));
+            }
+        }
+        return new IngredientChanges(inserts, updates, new ArrayList<>(existingByProduct.values()));
+    }
+
+    boolean isEmpty() {
+        return inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty();
+    }
+
+    record Update(RecipeIngredient ingredient, Double quantity, String unit) {
+    }
+}
@@ -0,0 +1,76 @@
+package org.cooking.cookingbenefits.service;
+
+import org.cooking.cookingbenefits.dto.CursorPage;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Постраничная выдача по ключу (название, id) без OFFSET: курсор хранит последнюю
+ * отданную пару, следующая страница начинается строго после нее.
+ * Из БД берется на одну строку больше размера страницы, чтобы понять, есть ли продолжение.
+ */
+final class KeysetPages {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    private KeysetPages() {
+    }
+
+    static int pageSize(int requested) {
+        return Math.max(1, Math.min(requested, MAX_PAGE_SIZE));
+    }
+
+    // id идет первым: название может содержать разделитель курсора
+    static String cursor(Long id, String name) {
+        return CursorCodec.encode(id, name);
+    }
+
+    static Key after(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Key.FIRST;
+        }
+        return CursorCodec.decode(cursor, 2, parts -> new Key(parts[1], Long.parseLong(parts[0])));
+    }
+
+    static <E, T> CursorPage<T> page(List<E> rows, int size, Function<E, T> mapper,
+                                     Function<E, String> cursorOf) {
+        boolean hasMore = rows.size() > size;
+        List<E> pageRows = hasMore ? rows.subList(0, size) : rows;
+        List<T> items = pageRows.stream().map(mapper).collect(Collectors.toList());
+        String nextCursor = hasMore ? cursorOf.apply(pageRows.get(size - 1)) : null;
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    // Страница из уже отсортированного по (название, id) списка в памяти: начало ищется бинарным поиском
+    static <T> CursorPage<T> page(List<T> sorted, Key after, int size, Function<T, Key> keyOf) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keyOf.apply(sorted.get(middle)).compareTo(after) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<T> rows = sorted.subList(low, Math.min(sorted.size(), low + size + 1));
+        return page(rows, size, Function.identity(), item -> {
+            Key key = keyOf.apply(item);
+            return cursor(key.id(), key.name());
+        });
+    }
+
+    record Key(String name, Long id) implements Comparable<Key> {
+
+        // Меньше любого реального ключа: названия не null, id положительные
+        static final Key FIRST = new Key("", 0L);
+
+        @Override
+        public int compareTo(Key other) {
+            int byName = name.compareTo(other.name);
+            return byName != 0 ? byName : id.compareTo(other.id);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.cooking.cookingbenefits.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отложенная запись времени входа. Вход только кладет время в буфер, где для пользователя
+ * остается последнее значение; буфер периодически пишется одним UPDATE ... FROM (VALUES ...)
+ * на пакет и дописывается при остановке. Запись идет в обход JPA и не сбрасывает кэш принципалов.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LastLoginRecorder {
+
+    private static final int ROWS_PER_UPDATE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void record(Long userId, LocalDateTime loginAt) {
+        pending.merge(userId, loginAt, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    @Scheduled(initialDelayString = "${app.auth.last-login.flush-interval:5000}",
+            fixedDelayString = "${app.auth.last-login.flush-interval:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Значение удаляется, только если за время снимка не пришел более поздний вход
+        Map<Long, LocalDateTime> batch = new HashMap<>();
+        for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        List<Map.Entry<Long, LocalDateTime>> rows = new ArrayList<>(batch.entrySet());
+        for (int from = 0; from < rows.size(); from += ROWS_PER_UPDATE) {
+            List<Map.Entry<Long, LocalDateTime>> chunk = rows.subList(from, Math.min(rows.size(), from + ROWS_PER_UPDATE));
+            try {
+                jdbcTemplate.update(updateSql(chunk.size()), updateArgs(chunk));
+            } catch (Exception e) {
+                // Не записанные значения возвращаются в буфер до следующей попытки
+                chunk.forEach(row -> record(row.getKey(), row.getValue()));
+                log.error("Ошибка записи времени входа для {} пользователей", chunk.size(), e);
+            }
+        }
+        log.debug("Записано время входа: {} пользователей", batch.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static String updateSql(int rows) {
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < rows; i++) {
+            values.add("(CAST(? AS bigint), CAST(? AS timestamp))");
+        }
+        return "UPDATE users u SET last_login_at = v.last_login_at " +
+                "FROM (VALUES " + values + ") AS v(id, last_login_at) " +
+                "WHERE u.id = v.id";
+    }
+
+    private static Object[] updateArgs(List<Map.Entry<Long, LocalDateTime>> rows) {
+        Object[] args = new Object[rows.size() * 2];
+        int i = 0;
+        for (Map.Entry<Long, LocalDateTime> row : rows) {
+            args[i++] = row.getKey();
+            args[i++] = Timestamp.valueOf(row.getValue());
+        }
+        return args;
+    }
+}
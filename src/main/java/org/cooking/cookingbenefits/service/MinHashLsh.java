@@ -0,0 +1,176 @@
+package org.cooking.cookingbenefits.service;
+
+import java.util.*;
+
+/**
+ * MinHash-сигнатуры наборов ингредиентов с LSH-бакетами по полосам.
+ * Два рецепта становятся кандидатами, если совпала хотя бы одна полоса из {@code bands}
+ * по {@code rows} хешей; порог срабатывания примерно (1 / bands) ^ (1 / rows).
+ * Кандидаты затем ранжируются точным коэффициентом Жаккара.
+ */
+public class MinHashLsh {
+
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+    private final Map<Long, long[]> productsByRecipe = new HashMap<>();
+    private final Map<Long, long[]> signaturesByRecipe = new HashMap<>();
+    private final List<Map<Long, Set<Long>>> bucketsByBand;
+
+    public MinHashLsh(int bands, int rows) {
+        this.bands = bands;
+        this.rows = rows;
+        this.seeds = new long[bands * rows];
+        SplittableRandom random = new SplittableRandom(0x5EEDL);
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextLong();
+        }
+        this.bucketsByBand = new ArrayList<>(bands);
+        for (int band = 0; band < bands; band++) {
+            bucketsByBand.add(new HashMap<>());
+        }
+    }
+
+    public void put(long recipeId, Collection<Long> productIds) {
+        remove(recipeId);
+        long[] products = productIds.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+        productsByRecipe.put(recipeId, products);
+        if (products.length == 0) {
+            return;
+        }
+        long[] signature = signature(products);
+        signaturesByRecipe.put(recipeId, signature);
+        for (int band = 0; band < bands; band++) {
+            bucketsByBand.get(band).computeIfAbsent(bandKey(signature, band), key -> new HashSet<>()).add(recipeId);
+        }
+    }
+
+    public void remove(long recipeId) {
+        productsByRecipe.remove(recipeId);
+        long[] signature = signaturesByRecipe.remove(recipeId);
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            Map<Long, Set<Long>> buckets = bucketsByBand.get(band);
+            long key = bandKey(signature, band);
+            Set<Long> bucket = buckets.get(key);
+            bucket.remove(recipeId);
+            if (bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    public void clear() {
+        productsByRecipe.clear();
+        signaturesByRecipe.clear();
+        bucketsByBand.forEach(Map::clear);
+    }
+
+    public int size() {
+        return productsByRecipe.size();
+    }
+
+    // Возвращает рецепты без удаленного продукта, чтобы их можно было переиндексировать
+    public Map<Long, List<Long>> withoutProduct(long productId) {
+        Map<Long, List<Long>> affected = new HashMap<>();
+        productsByRecipe.forEach((recipeId, products) -> {
+            if (Arrays.binarySearch(products, productId) >= 0) {
+                List<Long> remaining = new ArrayList<>(products.length - 1);
+                for (long product : products) {
+                    if (product != productId) {
+                        remaining.add(product);
+                    }
+                }
+                affected.put(recipeId, remaining);
+            }
+        });
+        return affected;
+    }
+
+    public List<Similarity> findSimilar(long recipeId, int limit, double minSimilarity) {
+        long[] signature = signaturesByRecipe.get(recipeId);
+        if (signature == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        long[] products = productsByRecipe.get(recipeId);
+
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < bands; band++) {
+            Set<Long> bucket = bucketsByBand.get(band).get(bandKey(signature, band));
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+        }
+        candidates.remove(recipeId);
+
+        List<Similarity> similar = new ArrayList<>(candidates.size());
+        for (Long candidateId : candidates) {
+            double similarity = jaccard(products, productsByRecipe.get(candidateId));
+            if (similarity >= minSimilarity) {
+                similar.add(new Similarity(candidateId, similarity));
+            }
+        }
+        similar.sort(Similarity.BY_SIMILARITY_DESC);
+        return similar.size() > limit ? new ArrayList<>(similar.subList(0, limit)) : similar;
+    }
+
+    // Обе последовательности отсортированы
+    public static double jaccard(long[] first, long[] second) {
+        if (first.length == 0 && second.length == 0) {
+            return 0.0;
+        }
+        int i = 0;
+        int j = 0;
+        int intersection = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] == second[j]) {
+                intersection++;
+                i++;
+                j++;
+            } else if (first[i] < second[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) intersection / (first.length + second.length - intersection);
+    }
+
+    private long[] signature(long[] products) {
+        long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long productId : products) {
+            for (int i = 0; i < seeds.length; i++) {
+                long hash = mix(productId ^ seeds[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private long bandKey(long[] signature, int band) {
+        long key = band;
+        for (int row = band * rows; row < (band + 1) * rows; row++) {
+            key = mix(key * 31 + signature[row]);
+        }
+        return key;
+    }
+
+    // Финализатор SplitMix64
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    public record Similarity(long recipeId, double similarity) {
+
+        public static final Comparator<Similarity> BY_SIMILARITY_DESC = Comparator
+                .comparingDouble(Similarity::similarity).reversed()
+                .thenComparingLong(Similarity::recipeId);
+    }
+}
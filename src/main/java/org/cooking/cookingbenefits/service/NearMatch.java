@@ -0,0 +1,8 @@
+package org.cooking.cookingbenefits.service;
+
+public record NearMatch(long recipeId, int missingCount, int ingredientCount) {
+
+    public double matchPercentage() {
+        return RecommendationIndex.matchPercentage(ingredientCount - missingCount, ingredientCount, false);
+    }
+}
@@ -0,0 +1,124 @@
+package org.cooking.cookingbenefits.service;
+
+import lombok.RequiredArgsConstructor;
+import org.cooking.cookingbenefits.entity.UserRecommendation;
+import org.cooking.cookingbenefits.event.CatalogImportedEvent;
+import org.cooking.cookingbenefits.event.FavoritesChangedEvent;
+import org.cooking.cookingbenefits.event.PantryChangedEvent;
+import org.cooking.cookingbenefits.event.ProductDeletedEvent;
+import org.cooking.cookingbenefits.event.RecipeDeletedEvent;
+import org.cooking.cookingbenefits.event.RecipeSavedEvent;
+import org.cooking.cookingbenefits.repository.UserFavoriteRepository;
+import org.cooking.cookingbenefits.repository.UserProductRepository;
+import org.cooking.cookingbenefits.repository.UserRecommendationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Чтение заранее посчитанных рекомендаций из user_recommendations.
+ * Запись считается свежей, если после расчета у пользователя и в каталоге ничего не менялось
+ * и она не старше app.recommendations.precompute.max-age.
+ * Расчет идет по индексу в памяти, поэтому при app.recommendations.scorer=sql сохраненные
+ * рекомендации не используются и не пересчитываются.
+ */
+@Component
+@RequiredArgsConstructor
+public class PrecomputedRecommendations {
+
+    static final String ENABLED = "'${app.recommendations.precompute.enabled:false}' == 'true' " +
+            "and '${app.recommendations.scorer:index}' == 'index'";
+
+    private final UserRecommendationRepository userRecommendationRepository;
+    private final UserFavoriteRepository userFavoriteRepository;
+    private final UserProductRepository userProductRepository;
+
+    @Value("${app.recommendations.precompute.max-age:PT24H}")
+    private Duration maxAge;
+
+    @Value("${app.recommendations.precompute.size:50}")
+    private int storedSize;
+
+    @Value("#{" + ENABLED + "}")
+    private boolean enabled;
+
+    public Optional<ScoredRecipes> find(Long userId, int limit, RecipeScore after) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        UserRecommendation recommendation = userRecommendationRepository.findCurrentByUserId(userId).orElse(null);
+        if (recommendation == null || !isFresh(recommendation)) {
+            return Optional.empty();
+        }
+
+        Long[] recipeIds = recommendation.getRecipeIds();
+        Double[] matchPercentages = recommendation.getMatchPercentages();
+        List<RecipeScore> scores = new ArrayList<>(limit);
+        for (int i = 0; i < recipeIds.length && scores.size() < limit; i++) {
+            RecipeScore score = new RecipeScore(recipeIds[i], matchPercentages[i]);
+            if (after == null || RecipeScore.BY_MATCH_DESC.compare(score, after) > 0) {
+                scores.add(score);
+            }
+        }
+
+        // Запрошенная страница выходит за сохраненный список - считаем на лету
+        if (scores.size() < limit && recipeIds.length >= storedSize) {
+            return Optional.empty();
+        }
+        return Optional.of(new ScoredRecipes(scores,
+                new HashSet<>(userFavoriteRepository.findRecipeIdsByUserId(userId)),
+                new HashSet<>(userProductRepository.findProductIdsByUserId(userId))));
+    }
+
+    private boolean isFresh(UserRecommendation recommendation) {
+        LocalDateTime computedAt = recommendation.getComputedAt();
+        LocalDateTime changedAt = recommendation.getChangedAt();
+        return (changedAt == null || changedAt.isBefore(computedAt))
+                && computedAt.isAfter(LocalDateTime.now().minus(maxAge));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPantryChanged(PantryChangedEvent event) {
+        userRecommendationRepository.markChanged(event.userId(), LocalDateTime.now());
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFavoritesChanged(FavoritesChangedEvent event) {
+        userRecommendationRepository.markChanged(event.userId(), LocalDateTime.now());
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeSaved(RecipeSavedEvent event) {
+        userRecommendationRepository.markCatalogChanged(LocalDateTime.now());
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeDeleted(RecipeDeletedEvent event) {
+        userRecommendationRepository.markCatalogChanged(LocalDateTime.now());
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        userRecommendationRepository.markCatalogChanged(LocalDateTime.now());
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        userRecommendationRepository.markCatalogChanged(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,145 @@
+package org.cooking.cookingbenefits.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cooking.cookingbenefits.dto.ProductDTO;
+import org.cooking.cookingbenefits.entity.Product;
+import org.cooking.cookingbenefits.event.CatalogImportedEvent;
+import org.cooking.cookingbenefits.event.ProductDeletedEvent;
+import org.cooking.cookingbenefits.event.ProductSavedEvent;
+import org.cooking.cookingbenefits.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Неизменяемый снимок каталога продуктов в памяти. Читатели берут текущий снимок
+ * без блокировок и без БД; изменение продукта собирает новый снимок из старого
+ * и атомарно подменяет ссылку. Списки упорядочены по (название, id) для постраничной выдачи.
+ * Отдаваемые DTO общие для всех запросов и не должны изменяться.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCatalogSnapshot {
+
+    static final Comparator<ProductDTO> BY_NAME_AND_ID =
+            Comparator.comparing(ProductDTO::getName).thenComparing(ProductDTO::getId);
+
+    private final ProductRepository productRepository;
+
+    private final AtomicReference<Catalog> catalog = new AtomicReference<>(Catalog.of(List.of()));
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<ProductDTO> products = productRepository.findAll().stream()
+                .map(ProductCatalogSnapshot::toDTO)
+                .toList();
+        catalog.set(Catalog.of(products));
+        log.info("Снимок каталога продуктов построен: {} продуктов", products.size());
+    }
+
+    public List<ProductDTO> all() {
+        return catalog.get().products();
+    }
+
+    public List<ProductDTO> byCategory(String category) {
+        Catalog current = catalog.get();
+        String key = categoryKey(category);
+        // Как и findByCategoryContainingIgnoreCase, ищем вхождение подстроки даже при точном совпадении:
+        // "Овощи" включает и "Замороженные овощи". Категорий немного
+        List<ProductDTO> products = new ArrayList<>();
+        current.byCategory().forEach((name, categoryProducts) -> {
+            if (name.contains(key)) {
+                products.addAll(categoryProducts);
+            }
+        });
+        products.sort(BY_NAME_AND_ID);
+        return products;
+    }
+
+    public List<ProductDTO> search(String query) {
+        Catalog current = catalog.get();
+        String normalizedQuery = ProductNameNormalizer.normalize(query);
+        List<ProductDTO> products = new ArrayList<>();
+        for (int i = 0; i < current.searchNames().length; i++) {
+            if (current.searchNames()[i].contains(normalizedQuery)) {
+                products.add(current.products().get(i));
+            }
+        }
+        return products;
+    }
+
+    public Optional<ProductDTO> findById(Long productId) {
+        return Optional.ofNullable(catalog.get().byId().get(productId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductSaved(ProductSavedEvent event) {
+        productRepository.findById(event.productId())
+                .map(ProductCatalogSnapshot::toDTO)
+                .ifPresent(product -> catalog.updateAndGet(current -> current.with(product)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        catalog.updateAndGet(current -> current.without(event.productId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        rebuild();
+    }
+
+    private static String categoryKey(String category) {
+        return category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static ProductDTO toDTO(Product product) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(product.getId());
+        dto.setName(product.getName());
+        dto.setCategory(product.getCategory());
+        dto.setIsCommon(product.getIsCommon());
+        return dto;
+    }
+
+    private record Catalog(List<ProductDTO> products, String[] searchNames,
+                           Map<Long, ProductDTO> byId, Map<String, List<ProductDTO>> byCategory) {
+
+        static Catalog of(Collection<ProductDTO> products) {
+            Map<Long, ProductDTO> byId = new HashMap<>();
+            products.forEach(product -> byId.put(product.getId(), product));
+
+            List<ProductDTO> ordered = byId.values().stream().sorted(BY_NAME_AND_ID).toList();
+            String[] searchNames = new String[ordered.size()];
+            Map<String, List<ProductDTO>> byCategory = new HashMap<>();
+            for (int i = 0; i < ordered.size(); i++) {
+                ProductDTO product = ordered.get(i);
+                searchNames[i] = ProductNameNormalizer.normalize(product.getName());
+                byCategory.computeIfAbsent(categoryKey(product.getCategory()), key -> new ArrayList<>()).add(product);
+            }
+            byCategory.replaceAll((category, categoryProducts) -> List.copyOf(categoryProducts));
+            return new Catalog(ordered, searchNames, Map.copyOf(byId), Map.copyOf(byCategory));
+        }
+
+        Catalog with(ProductDTO product) {
+            Map<Long, ProductDTO> copy = new HashMap<>(byId);
+            copy.put(product.getId(), product);
+            return of(copy.values());
+        }
+
+        Catalog without(Long productId) {
+            if (!byId.containsKey(productId)) {
+                return this;
+            }
+            Map<Long, ProductDTO> copy = new HashMap<>(byId);
+            copy.remove(productId);
+            return of(copy.values());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.cooking.cookingbenefits.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Приведение названий продуктов к виду для поиска: нижний регистр, "ё" как "е",
+ * без диакритики и лишних пробелов. Латинские буквы, похожие на кириллические,
+ * внутри русских слов заменяются кириллицей ("мoлоко" с латинской "o").
+ */
+public final class ProductNameNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private static final String LATIN_LOOKALIKES = "aceopxykmthb";
+    private static final String CYRILLIC_LOOKALIKES = "асеорхукмтнв";
+
+    private static final String QWERTY_LAYOUT = "qwertyuiop[]asdfghjkl;'zxcvbnm,.`";
+    private static final String JCUKEN_LAYOUT = "йцукенгшщзхъфывапролджэячсмитьбюё";
+
+    private ProductNameNormalizer() {
+    }
+
+    public static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(name.toLowerCase(Locale.ROOT).replace('ё', 'е'), Normalizer.Form.NFD)
+                // "й" раскладывается в "и" + кратка, это не диакритика, а отдельная буква
+                .replace("и\u0306", "й");
+        String withoutMarks = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        String collapsed = SPACES.matcher(withoutMarks).replaceAll(" ").trim();
+
+        String[] words = collapsed.split(" ");
+        for (int i = 0; i < words.length; i++) {
+            words[i] = foldLookalikes(words[i]);
+        }
+        return String.join(" ", words);
+    }
+
+    // Текст, набранный в английской раскладке вместо русской: "vjkjrj" -> "молоко"
+    public static String switchKeyboardLayout(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (char c : text.toLowerCase(Locale.ROOT).toCharArray()) {
+            int index = QWERTY_LAYOUT.indexOf(c);
+            result.append(index >= 0 ? JCUKEN_LAYOUT.charAt(index) : c);
+        }
+        return normalize(result.toString());
+    }
+
+    private static String foldLookalikes(String word) {
+        if (word.chars().noneMatch(c -> Character.UnicodeBlock.of(c) == Character.UnicodeBlock.CYRILLIC)) {
+            return word;
+        }
+        StringBuilder result = new StringBuilder(word.length());
+        for (char c : word.toCharArray()) {
+            int index = LATIN_LOOKALIKES.indexOf(c);
+            result.append(index >= 0 ? CYRILLIC_LOOKALIKES.charAt(index) : c);
+        }
+        return result.toString();
+    }
+}
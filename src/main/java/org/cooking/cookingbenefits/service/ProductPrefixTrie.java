@@ -0,0 +1,67 @@
+package org.cooking.cookingbenefits.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Префиксное дерево по нормализованным названиям продуктов.
+ * Название индексируется с начала каждого слова. В каждом узле хранится до {@code topSize}
+ * лучших продуктов, поэтому продукты нужно добавлять в порядке убывания популярности.
+ */
+public class ProductPrefixTrie {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int topSize;
+    private final Node root = new Node();
+
+    public ProductPrefixTrie(int topSize) {
+        this.topSize = topSize;
+    }
+
+    public void add(int productIndex, String normalizedName) {
+        for (int start = 0; start < normalizedName.length(); start++) {
+            if (start == 0 || normalizedName.charAt(start - 1) == ' ') {
+                insert(productIndex, normalizedName, start);
+            }
+        }
+    }
+
+    public int[] find(String normalizedPrefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < normalizedPrefix.length() && node != null; i++) {
+            node = node.children.get(normalizedPrefix.charAt(i));
+        }
+        if (node == null) {
+            return EMPTY;
+        }
+        return Arrays.copyOf(node.top, Math.min(node.topCount, limit));
+    }
+
+    private void insert(int productIndex, String name, int start) {
+        Node node = root;
+        node.offer(productIndex, topSize);
+        for (int i = start; i < name.length(); i++) {
+            node = node.children.computeIfAbsent(name.charAt(i), c -> new Node());
+            node.offer(productIndex, topSize);
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private int[] top = EMPTY;
+        private int topCount;
+
+        void offer(int productIndex, int topSize) {
+            // Повтор возможен, если название содержит одно и то же слово несколько раз
+            if (topCount == topSize || (topCount > 0 && top[topCount - 1] == productIndex)) {
+                return;
+            }
+            if (topCount == top.length) {
+                top = Arrays.copyOf(top, Math.min(topSize, Math.max(2, top.length * 2)));
+            }
+            top[topCount++] = productIndex;
+        }
+    }
+}
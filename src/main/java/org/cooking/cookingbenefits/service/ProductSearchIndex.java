@@ -0,0 +1,134 @@
+package org.cooking.cookingbenefits.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cooking.cookingbenefits.entity.Product;
+import org.cooking.cookingbenefits.event.CatalogImportedEvent;
+import org.cooking.cookingbenefits.event.ProductDeletedEvent;
+import org.cooking.cookingbenefits.event.ProductSavedEvent;
+import org.cooking.cookingbenefits.repository.ProductRepository;
+import org.cooking.cookingbenefits.repository.UserProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Поиск по названиям продуктов без обращения к БД: автодополнение по префиксу и нечеткий
+ * поиск с опечатками. Популярность продукта - число пользователей, у которых он есть; она
+ * пересчитывается при импорте каталога и периодически по расписанию. Сохранение или удаление
+ * одного продукта применяется к текущему снимку без перечитывания таблицы.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final int TOP_SIZE = 20;
+    private static final int MAX_EDIT_DISTANCE = 2;
+
+    private final ProductRepository productRepository;
+    private final UserProductRepository userProductRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(
+            new ProductPrefixTrie(TOP_SIZE), new SymSpellIndex(MAX_EDIT_DISTANCE), new Product[0], Map.of());
+    // Перестроения и точечные изменения публикуют снимок по очереди, иначе мог победить устаревший
+    private final Object updateMonitor = new Object();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.products.search-index.refresh-interval:600000}",
+            fixedDelayString = "${app.products.search-index.refresh-interval:600000}")
+    public void rebuild() {
+        synchronized (updateMonitor) {
+            Map<Long, Long> popularity = new HashMap<>();
+            for (UserProductRepository.ProductPopularity row : userProductRepository.countUsersByProduct()) {
+                popularity.put(row.getProductId(), row.getUserCount());
+            }
+            List<Product> products = productRepository.findAll();
+            publish(products, popularity);
+            log.info("Поисковый индекс продуктов построен: {} продуктов", products.size());
+        }
+    }
+
+    // Индексы пересобираются из продуктов текущего снимка: таблица целиком не перечитывается
+    private void replaceProduct(Long productId, Optional<Product> product) {
+        Snapshot current = snapshot;
+        List<Product> products = new ArrayList<>(current.products().length + 1);
+        for (Product existing : current.products()) {
+            if (!existing.getId().equals(productId)) {
+                products.add(existing);
+            }
+        }
+        product.ifPresent(products::add);
+        publish(products, current.popularity());
+    }
+
+    private void publish(List<Product> products, Map<Long, Long> popularity) {
+        Map<Product, String> normalizedNames = new IdentityHashMap<>();
+        products.forEach(product -> normalizedNames.put(product, ProductNameNormalizer.normalize(product.getName())));
+        products.sort(Comparator
+                .comparingLong((Product product) -> popularity.getOrDefault(product.getId(), 0L)).reversed()
+                .thenComparingInt(product -> normalizedNames.get(product).length())
+                .thenComparing(normalizedNames::get));
+
+        ProductPrefixTrie trie = new ProductPrefixTrie(TOP_SIZE);
+        SymSpellIndex symSpell = new SymSpellIndex(MAX_EDIT_DISTANCE);
+        for (int i = 0; i < products.size(); i++) {
+            String normalizedName = normalizedNames.get(products.get(i));
+            trie.add(i, normalizedName);
+            symSpell.add(i, normalizedName);
+        }
+        snapshot = new Snapshot(trie, symSpell, products.toArray(new Product[0]), popularity);
+    }
+
+    public List<Product> complete(String prefix, int limit) {
+        Snapshot current = snapshot;
+        int[] found = current.trie().find(ProductNameNormalizer.normalize(prefix), Math.min(Math.max(limit, 1), TOP_SIZE));
+        List<Product> products = new ArrayList<>(found.length);
+        for (int index : found) {
+            products.add(current.products()[index]);
+        }
+        return products;
+    }
+
+    // Результаты упорядочены по числу опечаток, при равенстве - по популярности
+    public List<Product> fuzzySearch(String query, int limit) {
+        Snapshot current = snapshot;
+        List<SymSpellIndex.Match> matches = current.symSpell().search(ProductNameNormalizer.normalize(query), limit);
+        if (matches.isEmpty()) {
+            matches = current.symSpell().search(ProductNameNormalizer.switchKeyboardLayout(query), limit);
+        }
+        List<Product> products = new ArrayList<>(matches.size());
+        for (SymSpellIndex.Match match : matches) {
+            products.add(current.products()[match.productIndex()]);
+        }
+        return products;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductSaved(ProductSavedEvent event) {
+        synchronized (updateMonitor) {
+            // Чтение под монитором: при двух сохранениях подряд последним публикуется свежее состояние
+            replaceProduct(event.productId(), productRepository.findById(event.productId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        synchronized (updateMonitor) {
+            replaceProduct(event.productId(), Optional.empty());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        rebuild();
+    }
+
+    private record Snapshot(ProductPrefixTrie trie, SymSpellIndex symSpell, Product[] products,
+                            Map<Long, Long> popularity) {
+    }
+}
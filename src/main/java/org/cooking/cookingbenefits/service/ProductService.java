@@ -2,18 +2,28 @@ package org.cooking.cookingbenefits.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.cooking.cookingbenefits.dto.CursorPage;
+import org.cooking.cookingbenefits.dto.PantrySyncRequest;
 import org.cooking.cookingbenefits.dto.ProductDTO;
 import org.cooking.cookingbenefits.entity.Product;
 import org.cooking.cookingbenefits.entity.User;
 import org.cooking.cookingbenefits.entity.UserExcludedProduct;
 import org.cooking.cookingbenefits.entity.UserProduct;
+import org.cooking.cookingbenefits.event.PantryChangedEvent;
+import org.cooking.cookingbenefits.event.ProductDeletedEvent;
+import org.cooking.cookingbenefits.event.ProductSavedEvent;
 import org.cooking.cookingbenefits.repository.ProductRepository;
 import org.cooking.cookingbenefits.repository.UserExcludedProductRepository;
 import org.cooking.cookingbenefits.repository.UserProductRepository;
 import org.cooking.cookingbenefits.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -26,52 +36,108 @@ public class ProductService {
     private final UserProductRepository userProductRepository;
     private final UserExcludedProductRepository userExcludedProductRepository;
     private final UserRepository userRepository;
-
-    public List<ProductDTO> getUserProducts(Long userId) {
-        return userProductRepository.findByUserId(userId).stream()
-                .map(this::convertToUserProductDTO)
-                .collect(Collectors.toList());
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCatalogSnapshot productCatalogSnapshot;
+
+    public CursorPage<ProductDTO> getUserProducts(Long userId, String cursor, int size) {
+        int pageSize = KeysetPages.pageSize(size);
+        KeysetPages.Key after = KeysetPages.after(cursor);
+        List<UserProduct> rows = userProductRepository.findPageByUserIdAfter(
+                userId, after.name(), after.id(), Limit.of(pageSize + 1));
+        return KeysetPages.page(rows, pageSize, this::convertToUserProductDTO,
+                row -> KeysetPages.cursor(row.getId(), row.getProduct().getName()));
     }
 
+    // Без блокировок: повторы и гонки разрешает уникальный ключ (user_id, product_id) через ON CONFLICT
     @Transactional
-    public synchronized void addUserProduct(Long userId, ProductDTO productDTO) {
+    public void addUserProduct(Long userId, ProductDTO productDTO) {
         log.info("Добавление продукта пользователю. UserId: {}, ProductId: {}", userId, productDTO.getId());
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
-
-        Product product = productRepository.findById(productDTO.getId())
-                .orElseThrow(() -> new RuntimeException("Продукт не найден с id: " + productDTO.getId()));
-
-        if (!userProductRepository.existsByUserIdAndProductId(userId, product.getId())) {
-            UserProduct userProduct = new UserProduct();
-            userProduct.setUser(user);
-            userProduct.setProduct(product);
-            userProductRepository.save(userProduct);
+        if (userProductRepository.insertMissing(userId, new Long[]{productDTO.getId()}) > 0) {
+            eventPublisher.publishEvent(new PantryChangedEvent(userId));
             log.info("Продукт успешно добавлен");
+        } else if (!productRepository.existsById(productDTO.getId())) {
+            throw new RuntimeException("Продукт не найден с id: " + productDTO.getId());
         } else {
             log.warn("Продукт уже есть у пользователя");
         }
     }
 
+    // Синхронизация всего набора продуктов пользователя за одну транзакцию
+    // тремя запросами вместо запроса на каждый продукт
     @Transactional
-    public synchronized void removeUserProduct(Long userId, Long productId) {
-        userProductRepository.deleteByUserIdAndProductId(userId, productId);
+    public List<ProductDTO> syncUserProducts(Long userId, PantrySyncRequest request) {
+        boolean fullSet = request.getProductIds() != null;
+        boolean delta = request.getAdd() != null || request.getRemove() != null;
+        if (fullSet == delta) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Нужно передать либо productIds, либо add/remove");
+        }
+
+        int changed = 0;
+        if (fullSet) {
+            Long[] productIds = request.getProductIds().toArray(new Long[0]);
+            changed += userProductRepository.deleteByUserIdExceptProductIds(userId, productIds);
+            changed += userProductRepository.insertMissing(userId, productIds);
+        } else {
+            if (request.getRemove() != null && !request.getRemove().isEmpty()) {
+                changed += userProductRepository.deleteByUserIdAndProductIds(
+                        userId, request.getRemove().toArray(new Long[0]));
+            }
+            if (request.getAdd() != null && !request.getAdd().isEmpty()) {
+                changed += userProductRepository.insertMissing(userId, request.getAdd().toArray(new Long[0]));
+            }
+        }
+
+        if (changed > 0) {
+            eventPublisher.publishEvent(new PantryChangedEvent(userId));
+            log.info("Продукты пользователя синхронизированы. UserId: {}, изменено: {}", userId, changed);
+        }
+        return userProductRepository.findWithProductByUserId(userId).stream()
+                .map(this::convertToUserProductDTO)
+                .collect(Collectors.toList());
     }
 
-    public List<ProductDTO> getProductCatalog(String category, String search) {
-        List<Product> products;
+    @Transactional
+    public void removeUserProduct(Long userId, Long productId) {
+        // Один DELETE без предварительного чтения: повторное удаление просто ничего не меняет
+        if (userProductRepository.deleteByUserIdAndProductIds(userId, new Long[]{productId}) > 0) {
+            eventPublisher.publishEvent(new PantryChangedEvent(userId));
+        }
+    }
 
+    // Каталог отдается из снимка в памяти, БД при чтении не используется
+    public CursorPage<ProductDTO> getProductCatalog(String category, String search, boolean fuzzy,
+                                                    String cursor, int size) {
+        int pageSize = KeysetPages.pageSize(size);
+        List<ProductDTO> products;
         if (category != null && !category.isEmpty() && !category.equals("null")) {
-            products = productRepository.findByCategoryContainingIgnoreCase(category);
+            products = productCatalogSnapshot.byCategory(category);
         } else if (search != null && !search.isEmpty() && !search.equals("null")) {
-            products = productRepository.findByNameContainingIgnoreCase(search);
+            // Нечеткий режим терпит опечатки и путаницу раскладок. Результаты упорядочены
+            // по близости, а не по названию, поэтому отдаются одной страницей без курсора
+            if (fuzzy) {
+                List<ProductDTO> matches = productSearchIndex.fuzzySearch(search, pageSize).stream()
+                        .map(product -> productCatalogSnapshot.findById(product.getId())
+                                .orElseGet(() -> convertToProductDTO(product)))
+                        .collect(Collectors.toList());
+                return new CursorPage<>(matches, null);
+            }
+            products = productCatalogSnapshot.search(search);
         } else {
-            products = productRepository.findAll(); // ВСЕ ПРОДУКТЫ!
+            products = productCatalogSnapshot.all(); // ВСЕ ПРОДУКТЫ!
         }
+        return KeysetPages.page(products, KeysetPages.after(cursor), pageSize,
+                product -> new KeysetPages.Key(product.getName(), product.getId()));
+    }
 
-        return products.stream()
-                .map(this::convertToProductDTO)
+    public List<ProductDTO> autocomplete(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return new ArrayList<>();
+        }
+        return productSearchIndex.complete(prefix, limit).stream()
+                .map(ProductService::convertToProductDTO)
                 .collect(Collectors.toList());
     }
 
@@ -89,6 +155,7 @@ public class ProductService {
             exclusion.setUser(user);
             exclusion.setProduct(product);
             userExcludedProductRepository.save(exclusion);
+            eventPublisher.publishEvent(new PantryChangedEvent(userId));
             log.info("Исключение успешно добавлено");
         }
     }
@@ -105,6 +172,7 @@ public class ProductService {
         product.setIsCommon(dto.getIsCommon() != null ? dto.getIsCommon() : true);
 
         Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductSavedEvent(saved.getId()));
         log.info("Создан новый продукт: {}", saved.getName());
         return convertToProductDTO(saved);
     }
@@ -121,6 +189,7 @@ public class ProductService {
         product.setIsCommon(dto.getIsCommon() != null ? dto.getIsCommon() : product.getIsCommon());
 
         Product updated = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductSavedEvent(updated.getId()));
         log.info("Продукт обновлен: {}", updated.getName());
         return convertToProductDTO(updated);
     }
@@ -133,13 +202,16 @@ public class ProductService {
                 .orElseThrow(() -> new RuntimeException("Продукт не найден с id: " + id));
 
         productRepository.delete(product);
+        eventPublisher.publishEvent(new ProductDeletedEvent(id));
         log.info("Продукт удален: {}", product.getName());
     }
 
-    public List<ProductDTO> getAllProductsForAdmin() {
-        return productRepository.findAll().stream()
-                .map(this::convertToProductDTO)
-                .collect(Collectors.toList());
+    public CursorPage<ProductDTO> getAllProductsForAdmin(String cursor, int size) {
+        int pageSize = KeysetPages.pageSize(size);
+        KeysetPages.Key after = KeysetPages.after(cursor);
+        List<Product> rows = productRepository.findPageAfter(after.name(), after.id(), Limit.of(pageSize + 1));
+        return KeysetPages.page(rows, pageSize, ProductService::convertToProductDTO,
+                product -> KeysetPages.cursor(product.getId(), product.getName()));
     }
 
     private ProductDTO convertToUserProductDTO(UserProduct userProduct) {
@@ -152,7 +224,8 @@ public class ProductService {
         return dto;
     }
 
-    private ProductDTO convertToProductDTO(Product product) {
+    // Доступно пакету для бенчмарков
+    static ProductDTO convertToProductDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
         dto.setName(product.getName());
@@ -0,0 +1,20 @@
+package org.cooking.cookingbenefits.service;
+
+import java.util.Comparator;
+
+public record RecipeScore(long recipeId, double matchPercentage) {
+
+    // Сначала больший процент совпадения, при равенстве - меньший id
+    public static final Comparator<RecipeScore> BY_MATCH_DESC = Comparator
+            .comparingDouble(RecipeScore::matchPercentage).reversed()
+            .thenComparingLong(RecipeScore::recipeId);
+
+    public String toCursor() {
+        return CursorCodec.encode(matchPercentage, recipeId);
+    }
+
+    public static RecipeScore fromCursor(String cursor) {
+        return CursorCodec.decode(cursor, 2,
+                parts -> new RecipeScore(Long.parseLong(parts[1]), Double.parseDouble(parts[0])));
+    }
+}
@@ -0,0 +1,10 @@
+package org.cooking.cookingbenefits.service;
+
+/**
+ * Расчет процента совпадения рецептов с продуктами пользователя.
+ * Реализация выбирается настройкой {@code app.recommendations.scorer}.
+ */
+public interface RecipeScorer {
+
+    ScoredRecipes topScores(Long userId, int limit, RecipeScore after);
+}
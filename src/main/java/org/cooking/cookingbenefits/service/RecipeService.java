@@ -2,12 +2,25 @@ package org.cooking.cookingbenefits.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.cooking.cookingbenefits.dto.CursorPage;
+import org.cooking.cookingbenefits.dto.ProductDTO;
 import org.cooking.cookingbenefits.dto.RecipeDTO;
+import org.cooking.cookingbenefits.dto.RecipeSummaryDTO;
 import org.cooking.cookingbenefits.entity.*;
+import org.cooking.cookingbenefits.event.FavoritesChangedEvent;
+import org.cooking.cookingbenefits.event.RecipeDeletedEvent;
+import org.cooking.cookingbenefits.event.RecipeSavedEvent;
 import org.cooking.cookingbenefits.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Types;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,102 +29,165 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class RecipeService {
 
+    private static final int MAX_RECOMMENDATIONS_LIMIT = 100;
+
+    private static final String INSERT_INGREDIENT_SQL =
+            "INSERT INTO recipe_ingredients (recipe_id, product_id, quantity, unit) VALUES (?, ?, ?, ?)";
+
     private final RecipeRepository recipeRepository;
     private final UserProductRepository userProductRepository;
     private final UserExcludedProductRepository userExclusionRepository;
     private final RecipeIngredientRepository recipeIngredientRepository;
     private final UserFavoriteRepository userFavoriteRepository;
     private final ProductRepository productRepository;
-
-    public List<RecipeDTO> getRecommendedRecipes(Long userId, int limit) {
+    private final RecipeScorer recipeScorer;
+    private final PrecomputedRecommendations precomputedRecommendations;
+    private final RecommendationIndex recommendationIndex;
+    private final RecipeSimilarityIndex recipeSimilarityIndex;
+    private final RecommendationCache recommendationCache;
+    private final ProductCatalogSnapshot productCatalogSnapshot;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    public CursorPage<RecipeSummaryDTO> getRecommendedRecipes(Long userId, int limit, String cursor, boolean missingIdsOnly) {
+        RecipeScore after = cursor != null && !cursor.isEmpty() ? RecipeScore.fromCursor(cursor) : null;
+        String pageKey = limit + ":" + missingIdsOnly + ":" + (cursor != null ? cursor : "");
         try {
-            log.info("Получение рекомендаций для пользователя: {}", userId);
+            return recommendationCache.get(userId, pageKey,
+                    () -> computeRecommendedRecipes(userId, limit, after, missingIdsOnly));
+        } catch (Exception e) {
+            log.error("Ошибка в getRecommendedRecipes", e);
+            return new CursorPage<>(new ArrayList<>(), null);
+        }
+    }
 
-            List<Recipe> allRecipes = recipeRepository.findByIsApprovedTrue();
+    private CursorPage<RecipeSummaryDTO> computeRecommendedRecipes(Long userId, int limit, RecipeScore after,
+                                                                  boolean missingIdsOnly) {
+        log.info("Получение рекомендаций для пользователя: {}", userId);
 
-            if (allRecipes.isEmpty()) {
-                log.warn("Нет одобренных рецептов в базе");
-                return new ArrayList<>();
-            }
+        int pageSize = Math.min(limit, MAX_RECOMMENDATIONS_LIMIT);
+        if (pageSize <= 0) {
+            return new CursorPage<>(new ArrayList<>(), null);
+        }
 
-            Set<Long> availableProductIds = userProductRepository.findByUserId(userId).stream()
-                    .map(up -> up.getProduct().getId())
-                    .collect(Collectors.toSet());
+        // Рассчитываем процент совпадения без запросов на каждый рецепт.
+        // Берем на один рецепт больше, чтобы понять, есть ли следующая страница
+        ScoredRecipes scored = precomputedRecommendations.find(userId, pageSize + 1, after)
+                .orElseGet(() -> recipeScorer.topScores(userId, pageSize + 1, after));
+        List<RecipeScore> scores = scored.scores();
+        if (scores.isEmpty() && after == null) {
+            log.warn("Нет одобренных рецептов в базе");
+        }
 
-            Set<Long> excludedProductIds = userExclusionRepository.findByUserId(userId).stream()
-                    .map(ue -> ue.getProduct().getId())
-                    .collect(Collectors.toSet());
+        boolean hasMore = scores.size() > pageSize;
+        List<RecipeScore> topScores = hasMore ? scores.subList(0, pageSize) : scores;
+        String nextCursor = hasMore ? topScores.get(topScores.size() - 1).toCursor() : null;
 
-            List<RecipeDTO> recommendations = new ArrayList<>();
-
-            for (Recipe recipe : allRecipes) {
-                try {
-                    RecipeDTO dto = convertToDTO(recipe);
-
-                    // Рассчитываем процент совпадения
-                    List<RecipeIngredient> ingredients = recipeIngredientRepository.findByRecipeId(recipe.getId());
-                    int totalIngredients = ingredients.size();
-                    int availableCount = 0;
-                    int excludedCount = 0;
-
-                    for (RecipeIngredient ingredient : ingredients) {
-                        Long productId = ingredient.getProduct().getId();
-                        if (excludedProductIds.contains(productId)) {
-                            excludedCount++;
-                        } else if (availableProductIds.contains(productId)) {
-                            availableCount++;
-                        }
-                    }
-
-                    double matchPercentage = 0;
-                    if (totalIngredients > 0) {
-                        matchPercentage = (double) availableCount / totalIngredients * 100;
-                        if (excludedCount > 0) {
-                            matchPercentage *= 0.5; // Штраф за исключенные
-                        }
-                    }
-
-                    dto.setMatchPercentage(Math.round(matchPercentage * 10) / 10.0);
-                    dto.setIsFavorite(userFavoriteRepository.existsByUserIdAndRecipeId(userId, recipe.getId()));
-
-                    recommendations.add(dto);
-                } catch (Exception e) {
-                    log.error("Ошибка обработки рецепта: {}", recipe.getId(), e);
-                }
+        Map<Long, RecipeSummaryDTO> recipesById = recipeRepository.findSummariesByIdIn(
+                        topScores.stream().map(RecipeScore::recipeId).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(RecipeRepository.RecipeSummaryView::getId, this::convertToSummaryDTO));
+        Map<Long, long[]> productsByRecipe = recipeProductIds(recipesById.keySet());
+
+        List<RecipeSummaryDTO> recommendations = new ArrayList<>();
+
+        for (RecipeScore score : topScores) {
+            RecipeSummaryDTO dto = recipesById.get(score.recipeId());
+            if (dto == null) {
+                continue;
+            }
+            try {
+                dto.setMatchPercentage(score.matchPercentage());
+                dto.setIsFavorite(scored.favoriteRecipeIds().contains(dto.getId()));
+                fillMissingProducts(dto, productsByRecipe.get(dto.getId()), scored.availableProductIds(),
+                        missingIdsOnly);
+                recommendations.add(dto);
+            } catch (Exception e) {
+                log.error("Ошибка обработки рецепта: {}", dto.getId(), e);
             }
+        }
 
-            recommendations.sort((a, b) ->
-                    Double.compare(b.getMatchPercentage(), a.getMatchPercentage()));
+        return new CursorPage<>(recommendations, nextCursor);
+    }
 
-            return recommendations.stream().limit(limit).collect(Collectors.toList());
+    public List<RecipeDTO> getCookableRecipes(Long userId, int maxMissing, int limit) {
+        log.info("Поиск рецептов из имеющихся продуктов. UserId: {}, maxMissing: {}", userId, maxMissing);
 
-        } catch (Exception e) {
-            log.error("Ошибка в getRecommendedRecipes", e);
+        int pageSize = Math.min(limit, MAX_RECOMMENDATIONS_LIMIT);
+        if (pageSize <= 0 || maxMissing < 0) {
             return new ArrayList<>();
         }
-    }
 
-    public List<RecipeDTO> searchRecipes(String query, List<Long> productIds, int minIngredients) {
-        try {
-            List<Recipe> recipes;
+        Set<Long> availableProductIds = new HashSet<>(userProductRepository.findProductIdsByUserId(userId));
+        if (availableProductIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> excludedProductIds = new HashSet<>(userExclusionRepository.findProductIdsByUserId(userId));
 
-            if (query != null && !query.isEmpty()) {
-                recipes = recipeRepository.findByTitleContainingIgnoreCase(query);
-            } else if (productIds != null && !productIds.isEmpty()) {
-                recipes = recipeRepository.findRecipesByProducts(productIds, minIngredients);
-            } else {
-                recipes = recipeRepository.findByIsApprovedTrue();
+        List<NearMatch> matches = recommendationIndex.findNearMatches(
+                availableProductIds, excludedProductIds, maxMissing, pageSize);
+        if (matches.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, RecipeDTO> recipesById = findDTOsById(
+                matches.stream().map(NearMatch::recipeId).collect(Collectors.toList()));
+        Set<Long> favoriteRecipeIds = new HashSet<>(userFavoriteRepository.findRecipeIdsByUserId(userId));
+
+        List<RecipeDTO> recipes = new ArrayList<>();
+        for (NearMatch match : matches) {
+            RecipeDTO dto = recipesById.get(match.recipeId());
+            if (dto == null) {
+                continue;
             }
+            dto.setMatchPercentage(match.matchPercentage());
+            dto.setIsFavorite(favoriteRecipeIds.contains(dto.getId()));
+            fillMissingIngredients(dto, availableProductIds, false);
+            recipes.add(dto);
+        }
+        return recipes;
+    }
 
-            return recipes.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+    public Page<RecipeDTO> searchRecipes(String query, List<Long> productIds, int minIngredients, int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_RECOMMENDATIONS_LIMIT));
+        try {
+            boolean hasProducts = productIds != null && !productIds.isEmpty();
+            Page<Recipe> recipes = recipeRepository.searchFullText(
+                    query != null ? query.trim() : "",
+                    hasProducts,
+                    hasProducts ? productIds : List.of(-1L),
+                    minIngredients,
+                    pageable);
+
+            Map<Long, List<RecipeDTO.IngredientDTO>> ingredients = ingredientsByRecipe(
+                    recipes.getContent().stream().map(Recipe::getId).collect(Collectors.toList()));
+            return recipes.map(recipe -> convertToDTO(recipe, ingredients));
         } catch (Exception e) {
             log.error("Ошибка в searchRecipes", e);
-            return new ArrayList<>();
+            return Page.empty(pageable);
         }
     }
 
+    public List<RecipeDTO> getSimilarRecipes(Long recipeId, int limit, double minSimilarity) {
+        if (!recipeRepository.existsById(recipeId)) {
+            throw new RuntimeException("Рецепт не найден с id: " + recipeId);
+        }
+
+        List<MinHashLsh.Similarity> similar = recipeSimilarityIndex.findSimilar(
+                recipeId, Math.min(limit, MAX_RECOMMENDATIONS_LIMIT), minSimilarity);
+        Map<Long, RecipeDTO> recipesById = findDTOsById(
+                similar.stream().map(MinHashLsh.Similarity::recipeId).collect(Collectors.toList()));
+
+        List<RecipeDTO> recipes = new ArrayList<>();
+        for (MinHashLsh.Similarity similarity : similar) {
+            RecipeDTO dto = recipesById.get(similarity.recipeId());
+            if (dto != null) {
+                dto.setSimilarity(Math.round(similarity.similarity() * 1000) / 1000.0);
+                recipes.add(dto);
+            }
+        }
+        return recipes;
+    }
+
     public RecipeDTO getRecipeById(Long recipeId) {
         Recipe recipe = recipeRepository.findById(recipeId)
                 .orElseThrow(() -> new RuntimeException("Рецепт не найден с id: " + recipeId));
@@ -127,6 +203,7 @@ public class RecipeService {
             favorite.setUser(User.builder().id(userId).build());
             favorite.setRecipe(Recipe.builder().id(recipeId).build());
             userFavoriteRepository.save(favorite);
+            eventPublisher.publishEvent(new FavoritesChangedEvent(userId));
             log.info("Рецепт добавлен в избранное");
         }
     }
@@ -135,13 +212,21 @@ public class RecipeService {
     public void removeFromFavorites(Long userId, Long recipeId) {
         log.info("Удаление из избранного. UserId: {}, RecipeId: {}", userId, recipeId);
         userFavoriteRepository.deleteByUserIdAndRecipeId(userId, recipeId);
+        eventPublisher.publishEvent(new FavoritesChangedEvent(userId));
         log.info("Рецепт удален из избранного");
     }
 
-    public List<RecipeDTO> getUserFavorites(Long userId) {
-        return userFavoriteRepository.findByUserId(userId).stream()
-                .map(favorite -> convertToDTO(favorite.getRecipe()))
-                .collect(Collectors.toList());
+    public CursorPage<RecipeSummaryDTO> getUserFavorites(Long userId, String cursor, int size) {
+        int pageSize = KeysetPages.pageSize(size);
+        KeysetPages.Key after = KeysetPages.after(cursor);
+        List<UserFavoriteRepository.FavoriteSummaryView> rows = userFavoriteRepository.findSummaryPageByUserIdAfter(
+                userId, after.name(), after.id(), Limit.of(pageSize + 1));
+        return KeysetPages.page(rows, pageSize, row -> {
+                    RecipeSummaryDTO dto = convertToSummaryDTO(row);
+                    dto.setIsFavorite(true);
+                    return dto;
+                },
+                row -> KeysetPages.cursor(row.getFavoriteId(), row.getTitle()));
     }
 
     @Transactional
@@ -162,21 +247,10 @@ public class RecipeService {
         Recipe savedRecipe = recipeRepository.save(recipe);
         log.info("Рецепт создан с id: {}", savedRecipe.getId());
 
-        if (dto.getIngredients() != null && !dto.getIngredients().isEmpty()) {
-            for (RecipeDTO.IngredientDTO ingrDto : dto.getIngredients()) {
-                Product product = productRepository.findById(ingrDto.getProductId())
-                        .orElseThrow(() -> new RuntimeException("Продукт не найден с id: " + ingrDto.getProductId()));
-
-                RecipeIngredient ingredient = new RecipeIngredient();
-                ingredient.setRecipe(savedRecipe);
-                ingredient.setProduct(product);
-                ingredient.setQuantity(ingrDto.getQuantity());
-                ingredient.setUnit(ingrDto.getUnit());
+        applyIngredientChanges(savedRecipe.getId(), IngredientChanges.between(List.of(), desiredIngredients(dto)));
 
-                recipeIngredientRepository.save(ingredient);
-                log.info("Добавлен ингредиент: {}", product.getName());
-            }
-        }
+        eventPublisher.publishEvent(new RecipeSavedEvent(
+                savedRecipe.getId(), Boolean.TRUE.equals(savedRecipe.getIsApproved()), ingredientProductIds(dto)));
 
         return convertToDTO(savedRecipe);
     }
@@ -200,24 +274,18 @@ public class RecipeService {
         Recipe updatedRecipe = recipeRepository.save(recipe);
         log.info("Рецепт обновлен");
 
-        recipeIngredientRepository.deleteByRecipeId(id);
-
-        if (dto.getIngredients() != null && !dto.getIngredients().isEmpty()) {
-            for (RecipeDTO.IngredientDTO ingrDto : dto.getIngredients()) {
-                Product product = productRepository.findById(ingrDto.getProductId())
-                        .orElseThrow(() -> new RuntimeException("Продукт не найден с id: " + ingrDto.getProductId()));
-
-                RecipeIngredient ingredient = new RecipeIngredient();
-                ingredient.setRecipe(updatedRecipe);
-                ingredient.setProduct(product);
-                ingredient.setQuantity(ingrDto.getQuantity());
-                ingredient.setUnit(ingrDto.getUnit());
-
-                recipeIngredientRepository.save(ingredient);
-            }
-            log.info("Ингредиенты обновлены");
+        // Пишутся только отличия от текущего состава, а не удаление и вставка всех ингредиентов
+        IngredientChanges changes = IngredientChanges.between(
+                recipeIngredientRepository.findByRecipeId(id), desiredIngredients(dto));
+        if (!changes.isEmpty()) {
+            applyIngredientChanges(id, changes);
+            log.info("Ингредиенты обновлены: +{} ~{} -{}",
+                    changes.inserts().size(), changes.updates().size(), changes.deletes().size());
         }
 
+        eventPublisher.publishEvent(new RecipeSavedEvent(
+                updatedRecipe.getId(), Boolean.TRUE.equals(updatedRecipe.getIsApproved()), ingredientProductIds(dto)));
+
         return convertToDTO(updatedRecipe);
     }
 
@@ -231,17 +299,48 @@ public class RecipeService {
         userFavoriteRepository.deleteByRecipeId(id);
         recipeIngredientRepository.deleteByRecipeId(id);
         recipeRepository.delete(recipe);
+        eventPublisher.publishEvent(new RecipeDeletedEvent(id));
 
         log.info("Рецепт удален: {}", recipe.getTitle());
     }
 
-    public List<RecipeDTO> getAllRecipesForAdmin() {
-        return recipeRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPage<RecipeSummaryDTO> getAllRecipesForAdmin(String cursor, int size) {
+        int pageSize = KeysetPages.pageSize(size);
+        KeysetPages.Key after = KeysetPages.after(cursor);
+        List<RecipeRepository.RecipeSummaryView> rows = recipeRepository.findSummaryPageAfter(
+                after.name(), after.id(), Limit.of(pageSize + 1));
+        return KeysetPages.page(rows, pageSize, this::convertToSummaryDTO,
+                row -> KeysetPages.cursor(row.getId(), row.getTitle()));
     }
 
     private RecipeDTO convertToDTO(Recipe recipe) {
+        return convertToDTO(recipe, ingredientsByRecipe(List.of(recipe.getId())));
+    }
+
+    // Списки рецептов собираются двумя запросами: рецепты и все их ингредиенты с продуктами
+    private Map<Long, RecipeDTO> findDTOsById(Collection<Long> recipeIds) {
+        List<Recipe> recipes = recipeRepository.findAllById(recipeIds);
+        Map<Long, List<RecipeDTO.IngredientDTO>> ingredients = ingredientsByRecipe(
+                recipes.stream().map(Recipe::getId).collect(Collectors.toList()));
+        return recipes.stream()
+                .collect(Collectors.toMap(Recipe::getId, recipe -> convertToDTO(recipe, ingredients)));
+    }
+
+    private Map<Long, List<RecipeDTO.IngredientDTO>> ingredientsByRecipe(Collection<Long> recipeIds) {
+        if (recipeIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return groupIngredients(recipeIngredientRepository.findWithProductByRecipeIdIn(recipeIds));
+    }
+
+    // Преобразования без обращения к БД; доступны пакету для бенчмарков
+    static Map<Long, List<RecipeDTO.IngredientDTO>> groupIngredients(Collection<RecipeIngredient> ingredients) {
+        return ingredients.stream()
+                .collect(Collectors.groupingBy(ingredient -> ingredient.getRecipe().getId(),
+                        Collectors.mapping(RecipeService::convertIngredientToDTO, Collectors.toList())));
+    }
+
+    static RecipeDTO convertToDTO(Recipe recipe, Map<Long, List<RecipeDTO.IngredientDTO>> ingredients) {
         RecipeDTO dto = new RecipeDTO();
         dto.setId(recipe.getId());
         dto.setTitle(recipe.getTitle());
@@ -255,17 +354,137 @@ public class RecipeService {
         dto.setMatchPercentage(0.0);
         dto.setIsFavorite(false);
 
-        List<RecipeDTO.IngredientDTO> ingredientDTOs =
-                recipeIngredientRepository.findByRecipeId(recipe.getId())
-                        .stream()
-                        .map(this::convertIngredientToDTO)
-                        .collect(Collectors.toList());
-        dto.setIngredients(ingredientDTOs);
+        dto.setIngredients(new ArrayList<>(ingredients.getOrDefault(recipe.getId(), List.of())));
 
         return dto;
     }
 
-    private RecipeDTO.IngredientDTO convertIngredientToDTO(RecipeIngredient ingredient) {
+    // Продукты рецептов берутся из индекса рекомендаций, из БД - только для отсутствующих в нем
+    private Map<Long, long[]> recipeProductIds(Collection<Long> recipeIds) {
+        Map<Long, long[]> productsByRecipe = new HashMap<>();
+        List<Long> notIndexed = new ArrayList<>();
+        for (Long recipeId : recipeIds) {
+            long[] productIds = recommendationIndex.productIds(recipeId);
+            if (productIds != null) {
+                productsByRecipe.put(recipeId, productIds);
+            } else {
+                notIndexed.add(recipeId);
+            }
+        }
+        if (!notIndexed.isEmpty()) {
+            Map<Long, List<Long>> loaded = new HashMap<>();
+            for (RecipeIngredientRepository.RecipeProductRef ref :
+                    recipeIngredientRepository.findProductRefsByRecipeIdIn(notIndexed)) {
+                loaded.computeIfAbsent(ref.getRecipeId(), id -> new ArrayList<>()).add(ref.getProductId());
+            }
+            loaded.forEach((recipeId, productIds) ->
+                    productsByRecipe.put(recipeId, productIds.stream().mapToLong(Long::longValue).toArray()));
+        }
+        return productsByRecipe;
+    }
+
+    // Названия недостающих продуктов берутся из снимка каталога, а не из строк ингредиентов
+    private void fillMissingProducts(RecipeSummaryDTO dto, long[] productIds, Set<Long> availableProductIds,
+                                     boolean idsOnly) {
+        List<Long> missingIds = new ArrayList<>();
+        if (productIds != null) {
+            for (long productId : productIds) {
+                if (!availableProductIds.contains(productId)) {
+                    missingIds.add(productId);
+                }
+            }
+        }
+        if (idsOnly) {
+            dto.setMissingProductIds(missingIds);
+        } else {
+            dto.setMissingIngredients(missingIds.stream()
+                    .map(productCatalogSnapshot::findById)
+                    .flatMap(Optional::stream)
+                    .map(ProductDTO::getName)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    private RecipeSummaryDTO convertToSummaryDTO(RecipeRepository.RecipeSummaryView row) {
+        RecipeSummaryDTO dto = new RecipeSummaryDTO();
+        dto.setId(row.getId());
+        dto.setTitle(row.getTitle());
+        dto.setCookingTimeMinutes(row.getCookingTimeMinutes());
+        dto.setDifficulty(row.getDifficulty());
+        dto.setServings(row.getServings());
+        dto.setCategory(row.getCategory());
+        dto.setImageUrl(row.getImageUrl());
+        dto.setMatchPercentage(0.0);
+        dto.setIsFavorite(false);
+        return dto;
+    }
+
+    // Недостающие ингредиенты - разность ингредиентов рецепта и продуктов пользователя
+    private void fillMissingIngredients(RecipeDTO dto, Set<Long> availableProductIds, boolean idsOnly) {
+        List<Long> missingIds = new ArrayList<>();
+        List<String> missingNames = new ArrayList<>();
+        for (RecipeDTO.IngredientDTO ingredient : dto.getIngredients()) {
+            if (!availableProductIds.contains(ingredient.getProductId())) {
+                missingIds.add(ingredient.getProductId());
+                missingNames.add(ingredient.getProductName());
+            }
+        }
+        if (idsOnly) {
+            dto.setMissingProductIds(missingIds);
+        } else {
+            dto.setMissingIngredients(missingNames);
+        }
+    }
+
+    private List<RecipeDTO.IngredientDTO> desiredIngredients(RecipeDTO dto) {
+        return dto.getIngredients() != null ? dto.getIngredients() : List.of();
+    }
+
+    // Новые ингредиенты вставляются одним пакетом JDBC: с IDENTITY Hibernate пакетную вставку не делает.
+    // Изменения количества пишутся при flush пакетными UPDATE, удаления - одним DELETE по списку id
+    private void applyIngredientChanges(Long recipeId, IngredientChanges changes) {
+        if (!changes.inserts().isEmpty()) {
+            Set<Long> productIds = changes.inserts().stream()
+                    .map(RecipeDTO.IngredientDTO::getProductId)
+                    .collect(Collectors.toSet());
+            Set<Long> foundIds = productRepository.findAllById(productIds).stream()
+                    .map(Product::getId)
+                    .collect(Collectors.toSet());
+            productIds.removeAll(foundIds);
+            if (!productIds.isEmpty()) {
+                throw new RuntimeException("Продукт не найден с id: " + productIds.iterator().next());
+            }
+
+            jdbcTemplate.batchUpdate(INSERT_INGREDIENT_SQL, changes.inserts(), changes.inserts().size(),
+                    (ps, ingredient) -> {
+                        ps.setLong(1, recipeId);
+                        ps.setLong(2, ingredient.getProductId());
+                        ps.setObject(3, ingredient.getQuantity(), Types.DOUBLE);
+                        ps.setString(4, ingredient.getUnit());
+                    });
+        }
+
+        for (IngredientChanges.Update update : changes.updates()) {
+            update.ingredient().setQuantity(update.quantity());
+            update.ingredient().setUnit(update.unit());
+        }
+
+        if (!changes.deletes().isEmpty()) {
+            recipeIngredientRepository.deleteAllByIdInBatch(
+                    changes.deletes().stream().map(RecipeIngredient::getId).toList());
+        }
+    }
+
+    private List<Long> ingredientProductIds(RecipeDTO dto) {
+        if (dto.getIngredients() == null) {
+            return Collections.emptyList();
+        }
+        return dto.getIngredients().stream()
+                .map(RecipeDTO.IngredientDTO::getProductId)
+                .collect(Collectors.toList());
+    }
+
+    private static RecipeDTO.IngredientDTO convertIngredientToDTO(RecipeIngredient ingredient) {
         RecipeDTO.IngredientDTO dto = new RecipeDTO.IngredientDTO();
         dto.setProductId(ingredient.getProduct().getId());
         dto.setProductName(ingredient.getProduct().getName());
@@ -0,0 +1,137 @@
+package org.cooking.cookingbenefits.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.cooking.cookingbenefits.event.CatalogImportedEvent;
+import org.cooking.cookingbenefits.event.ProductDeletedEvent;
+import org.cooking.cookingbenefits.event.RecipeDeletedEvent;
+import org.cooking.cookingbenefits.event.RecipeSavedEvent;
+import org.cooking.cookingbenefits.repository.RecipeIngredientRepository;
+import org.cooking.cookingbenefits.repository.RecipeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Поиск похожих по составу рецептов через MinHash/LSH.
+ * Число полос и строк в полосе задает баланс между полнотой и точностью выдачи.
+ */
+@Slf4j
+@Component
+public class RecipeSimilarityIndex {
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final MinHashLsh lsh;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Изменения, пришедшие во время чтения БД при перестроении; повторяются поверх нового индекса.
+    // null - перестроение не идет. Доступ под блокировкой записи
+    private List<Runnable> changesDuringRebuild;
+    private final Object rebuildMonitor = new Object();
+
+    public RecipeSimilarityIndex(
+            RecipeRepository recipeRepository,
+            RecipeIngredientRepository recipeIngredientRepository,
+            @Value("${app.recipes.similarity.bands:16}") int bands,
+            @Value("${app.recipes.similarity.rows:4}") int rows) {
+        this.recipeRepository = recipeRepository;
+        this.recipeIngredientRepository = recipeIngredientRepository;
+        this.lsh = new MinHashLsh(bands, rows);
+    }
+
+    // Перестроения по старту и по импорту выполняются по очереди, иначе старые данные могли опубликоваться последними
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                rebuildFromDatabase();
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    changesDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    private void rebuildFromDatabase() {
+        Map<Long, List<Long>> productsByRecipe = new HashMap<>();
+        for (Long recipeId : recipeRepository.findApprovedRecipeIds()) {
+            productsByRecipe.put(recipeId, new ArrayList<>());
+        }
+        for (RecipeIngredientRepository.RecipeProductRef ref : recipeIngredientRepository.findApprovedRecipeProductRefs()) {
+            productsByRecipe.computeIfAbsent(ref.getRecipeId(), id -> new ArrayList<>()).add(ref.getProductId());
+        }
+
+        lock.writeLock().lock();
+        try {
+            lsh.clear();
+            productsByRecipe.forEach(lsh::put);
+            changesDuringRebuild.forEach(Runnable::run);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс похожих рецептов построен: {} рецептов", productsByRecipe.size());
+    }
+
+    public List<MinHashLsh.Similarity> findSimilar(Long recipeId, int limit, double minSimilarity) {
+        lock.readLock().lock();
+        try {
+            return lsh.findSimilar(recipeId, limit, minSimilarity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeSaved(RecipeSavedEvent event) {
+        apply(() -> {
+            if (event.approved()) {
+                lsh.put(event.recipeId(), event.productIds());
+            } else {
+                lsh.remove(event.recipeId());
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeDeleted(RecipeDeletedEvent event) {
+        apply(() -> lsh.remove(event.recipeId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        apply(() -> lsh.withoutProduct(event.productId()).forEach(lsh::put));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        rebuild();
+    }
+
+    // Изменение применяется сразу и, если идет перестроение, повторяется поверх прочитанных из БД данных
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
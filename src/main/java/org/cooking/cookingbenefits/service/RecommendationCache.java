@@ -0,0 +1,155 @@
+package org.cooking.cookingbenefits.service;
+
+import org.cooking.cookingbenefits.cache.BoundedTtlCache;
+import org.cooking.cookingbenefits.cache.CacheStats;
+import org.cooking.cookingbenefits.dto.CursorPage;
+import org.cooking.cookingbenefits.dto.RecipeSummaryDTO;
+import org.cooking.cookingbenefits.event.CatalogImportedEvent;
+import org.cooking.cookingbenefits.event.FavoritesChangedEvent;
+import org.cooking.cookingbenefits.event.PantryChangedEvent;
+import org.cooking.cookingbenefits.event.ProductDeletedEvent;
+import org.cooking.cookingbenefits.event.RecipeDeletedEvent;
+import org.cooking.cookingbenefits.event.RecipeSavedEvent;
+import org.cooking.cookingbenefits.event.RecommendationIndexRebuiltEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Кэш готовых страниц рекомендаций. Ключ верхнего уровня - пользователь,
+ * поэтому изменения его продуктов или избранного сбрасывают ровно его записи,
+ * а изменения каталога рецептов - весь кэш. Число страниц одного пользователя ограничено:
+ * ключ страницы (размер, курсор) задает клиент.
+ */
+@Component
+public class RecommendationCache {
+
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final BoundedTtlCache<Long, Map<String, CursorPage<RecipeSummaryDTO>>> pagesByUser;
+    private final int maxPagesPerUser;
+
+    // Страница, посчитанная во время инвалидации своего пользователя или всего кэша, не кэшируется.
+    // Счетчики пользователей разбиты на полосы по id, чтобы память не росла с числом пользователей;
+    // совпадение полосы лишь изредка отменяет кэширование чужой страницы
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLongArray userInvalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    // Попадания считаются по страницам, а не по пользователям
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public RecommendationCache(
+            @Value("${app.recommendations.cache.max-users:10000}") int maxUsers,
+            @Value("${app.recommendations.cache.ttl:5m}") Duration ttl,
+            @Value("${app.recommendations.cache.max-pages-per-user:8}") int maxPagesPerUser) {
+        this.pagesByUser = new BoundedTtlCache<>(maxUsers, ttl);
+        this.maxPagesPerUser = maxPagesPerUser;
+    }
+
+    public CursorPage<RecipeSummaryDTO> get(Long userId, String pageKey, Supplier<CursorPage<RecipeSummaryDTO>> loader) {
+        Map<String, CursorPage<RecipeSummaryDTO>> pages = pagesByUser.get(userId);
+        if (pages != null) {
+            CursorPage<RecipeSummaryDTO> cached = pages.get(pageKey);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+
+        int stripe = stripe(userId);
+        long version = invalidations.get();
+        long userVersion = userInvalidations.get(stripe);
+        CursorPage<RecipeSummaryDTO> page = loader.get();
+        if (isCurrent(stripe, version, userVersion)) {
+            Map<String, CursorPage<RecipeSummaryDTO>> userPages = pagesByUser.computeIfAbsent(userId, id -> newPageMap());
+            userPages.put(pageKey, page);
+            // Сброс мог пройти между проверкой и записью: счетчики растут до очистки,
+            // поэтому повторная проверка после записи ловит его, а более поздний сброс сам удалит страницу
+            if (!isCurrent(stripe, version, userVersion)) {
+                userPages.remove(pageKey);
+            }
+        }
+        return page;
+    }
+
+    public void invalidate(Long userId) {
+        userInvalidations.incrementAndGet(stripe(userId));
+        pagesByUser.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        pagesByUser.invalidateAll();
+    }
+
+    // LRU по страницам пользователя; вытесняются давно не запрошенные курсоры и размеры
+    private Map<String, CursorPage<RecipeSummaryDTO>> newPageMap() {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CursorPage<RecipeSummaryDTO>> eldest) {
+                return size() > maxPagesPerUser;
+            }
+        });
+    }
+
+    private boolean isCurrent(int stripe, long version, long userVersion) {
+        return invalidations.get() == version && userInvalidations.get(stripe) == userVersion;
+    }
+
+    private static int stripe(Long userId) {
+        return Math.floorMod(Long.hashCode(userId), INVALIDATION_STRIPES);
+    }
+
+    public CacheStats stats() {
+        CacheStats userStats = pagesByUser.stats();
+        return new CacheStats(hits.sum(), misses.sum(), userStats.evictions(), userStats.size(), userStats.maxSize());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPantryChanged(PantryChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFavoritesChanged(FavoritesChangedEvent event) {
+        invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeSaved(RecipeSavedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeDeleted(RecipeDeletedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        invalidateAll();
+    }
+
+    // Страницы, посчитанные до перестроения индекса, могли быть получены по неполным данным
+    @EventListener
+    public void onRecommendationIndexRebuilt(RecommendationIndexRebuiltEvent event) {
+        invalidateAll();
+    }
+}
@@ -0,0 +1,396 @@
+package org.cooking.cookingbenefits.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cooking.cookingbenefits.event.CatalogImportedEvent;
+import org.cooking.cookingbenefits.event.ProductDeletedEvent;
+import org.cooking.cookingbenefits.event.RecipeDeletedEvent;
+import org.cooking.cookingbenefits.event.RecipeSavedEvent;
+import org.cooking.cookingbenefits.event.RecommendationIndexRebuiltEvent;
+import org.cooking.cookingbenefits.repository.RecipeIngredientRepository;
+import org.cooking.cookingbenefits.repository.RecipeRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс одобренных рецептов для расчета рекомендаций без обращения к БД.
+ * Каждому рецепту выделяется слот; для продукта хранится битовое множество слотов,
+ * в которых он встречается, для слота - отсортированные id продуктов и их количество.
+ * Индекс строится до запуска веб-сервера, поэтому первые запросы не видят его пустым.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecommendationIndex implements SmartInitializingSingleton {
+
+    private static final long[] NO_PRODUCTS = new long[0];
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotByRecipeId = new HashMap<>();
+    private final Map<Long, BitSet> recipesByProduct = new HashMap<>();
+    private final BitSet occupiedSlots = new BitSet();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private long[] recipeIds = new long[0];
+    private long[][] productsBySlot = new long[0][];
+    private int[] ingredientCounts = new int[0];
+    private int slotCount;
+    private volatile boolean ready;
+
+    // Изменения, пришедшие во время чтения БД при перестроении; повторяются поверх нового индекса.
+    // null - перестроение не идет. Доступ под блокировкой записи
+    private List<Runnable> changesDuringRebuild;
+    private final Object rebuildMonitor = new Object();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                rebuildFromDatabase();
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    changesDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+        eventPublisher.publishEvent(new RecommendationIndexRebuiltEvent(size()));
+    }
+
+    // БД читается без блокировки, чтобы запросы рекомендаций не ждали; изменения, пришедшие
+    // за это время, могли не попасть в прочитанные данные и применяются заново (они идемпотентны)
+    private void rebuildFromDatabase() {
+        Map<Long, List<Long>> productsByRecipe = new HashMap<>();
+        for (Long recipeId : recipeRepository.findApprovedRecipeIds()) {
+            productsByRecipe.put(recipeId, new ArrayList<>());
+        }
+        for (RecipeIngredientRepository.RecipeProductRef ref : recipeIngredientRepository.findApprovedRecipeProductRefs()) {
+            productsByRecipe.computeIfAbsent(ref.getRecipeId(), id -> new ArrayList<>()).add(ref.getProductId());
+        }
+
+        lock.writeLock().lock();
+        try {
+            slotByRecipeId.clear();
+            recipesByProduct.clear();
+            occupiedSlots.clear();
+            freeSlots.clear();
+            slotCount = 0;
+            recipeIds = new long[productsByRecipe.size()];
+            productsBySlot = new long[productsByRecipe.size()][];
+            ingredientCounts = new int[productsByRecipe.size()];
+            productsByRecipe.forEach(this::putLocked);
+            changesDuringRebuild.forEach(Runnable::run);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс рекомендаций построен: {} рецептов, {} продуктов", productsByRecipe.size(), recipesByProduct.size());
+    }
+
+    public void put(Long recipeId, Collection<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(recipeId);
+            putLocked(recipeId, productIds);
+            recordDuringRebuild(() -> {
+                removeLocked(recipeId);
+                putLocked(recipeId, productIds);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long recipeId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(recipeId);
+            recordDuringRebuild(() -> removeLocked(recipeId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeProduct(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeProductLocked(productId);
+            recordDuringRebuild(() -> removeProductLocked(productId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeProductLocked(Long productId) {
+        BitSet slots = recipesByProduct.remove(productId);
+        if (slots == null) {
+            return;
+        }
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            long[] products = productsBySlot[slot];
+            int position = Arrays.binarySearch(products, productId);
+            long[] remaining = new long[products.length - 1];
+            System.arraycopy(products, 0, remaining, 0, position);
+            System.arraycopy(products, position + 1, remaining, position, remaining.length - position);
+            productsBySlot[slot] = remaining;
+            ingredientCounts[slot] = remaining.length;
+        }
+    }
+
+    private void recordDuringRebuild(Runnable change) {
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotByRecipeId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // id продуктов рецепта по возрастанию или null, если рецепта нет в индексе
+    public long[] productIds(Long recipeId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotByRecipeId.get(recipeId);
+            return slot != null ? productsBySlot[slot] : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает до {@code limit} лучших рецептов, идущих после {@code after} в порядке
+     * {@link RecipeScore#BY_MATCH_DESC}. Отбор идет через кучу ограниченного размера,
+     * объекты создаются только для кандидатов, попадающих в нее.
+     */
+    public List<RecipeScore> topScores(Set<Long> availableProductIds, Set<Long> excludedProductIds,
+                                       int limit, RecipeScore after) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            int[] availableCounts = new int[slotCount];
+            BitSet excludedSlots = new BitSet(slotCount);
+
+            for (Long productId : excludedProductIds) {
+                BitSet slots = recipesByProduct.get(productId);
+                if (slots != null) {
+                    excludedSlots.or(slots);
+                }
+            }
+            for (Long productId : availableProductIds) {
+                BitSet slots = recipesByProduct.get(productId);
+                if (slots == null || excludedProductIds.contains(productId)) {
+                    continue;
+                }
+                for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+                    availableCounts[slot]++;
+                }
+            }
+
+            // В вершине кучи - худший из отобранных
+            PriorityQueue<RecipeScore> heap = new PriorityQueue<>(limit + 1, RecipeScore.BY_MATCH_DESC.reversed());
+            for (int slot = occupiedSlots.nextSetBit(0); slot >= 0; slot = occupiedSlots.nextSetBit(slot + 1)) {
+                double matchPercentage = matchPercentage(
+                        availableCounts[slot], ingredientCounts[slot], excludedSlots.get(slot));
+                long recipeId = recipeIds[slot];
+                if (after != null && !isAfter(matchPercentage, recipeId, after)) {
+                    continue;
+                }
+                if (heap.size() == limit && !isAfter(matchPercentage, recipeId, heap.peek())) {
+                    continue;
+                }
+                heap.offer(new RecipeScore(recipeId, matchPercentage));
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            }
+
+            List<RecipeScore> scores = new ArrayList<>(heap);
+            scores.sort(RecipeScore.BY_MATCH_DESC);
+            return scores;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Рецепты, которым не хватает не больше {@code maxMissing} ингредиентов и в которых нет
+     * исключенных продуктов. Счетчики (ScanCount) заводятся только для рецептов из списков
+     * продуктов пользователя, поэтому память запроса зависит от числа кандидатов. Обход
+     * битового множества продукта все же проходит его слова до старшего слота, так что
+     * время растет и с размером каталога - примерно на слот/64 шагов на продукт.
+     */
+    public List<NearMatch> findNearMatches(Set<Long> availableProductIds, Set<Long> excludedProductIds,
+                                           int maxMissing, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet excludedSlots = new BitSet();
+            for (Long productId : excludedProductIds) {
+                BitSet slots = recipesByProduct.get(productId);
+                if (slots != null) {
+                    excludedSlots.or(slots);
+                }
+            }
+
+            // Слот -> число имеющихся ингредиентов; массив на весь каталог на каждый запрос не заводится
+            Map<Integer, Integer> counts = new HashMap<>();
+            for (Long productId : availableProductIds) {
+                BitSet slots = recipesByProduct.get(productId);
+                if (slots == null || excludedProductIds.contains(productId)) {
+                    continue;
+                }
+                for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+                    counts.merge(slot, 1, Integer::sum);
+                }
+            }
+
+            List<NearMatch> matches = new ArrayList<>();
+            counts.forEach((slot, count) -> {
+                int missingCount = ingredientCounts[slot] - count;
+                if (missingCount <= maxMissing && !excludedSlots.get(slot)) {
+                    matches.add(new NearMatch(recipeIds[slot], missingCount, ingredientCounts[slot]));
+                }
+            });
+            // Рецепты из maxMissing ингредиентов и меньше подходят, даже если ни одного из них нет в наличии
+            if (maxMissing > 0) {
+                for (int slot = occupiedSlots.nextSetBit(0); slot >= 0; slot = occupiedSlots.nextSetBit(slot + 1)) {
+                    int ingredientCount = ingredientCounts[slot];
+                    if (ingredientCount > 0 && ingredientCount <= maxMissing
+                            && !counts.containsKey(slot) && !excludedSlots.get(slot)) {
+                        matches.add(new NearMatch(recipeIds[slot], ingredientCount, ingredientCount));
+                    }
+                }
+            }
+
+            matches.sort(Comparator.comparingInt(NearMatch::missingCount)
+                    .thenComparing(Comparator.comparingInt(NearMatch::ingredientCount).reversed())
+                    .thenComparingLong(NearMatch::recipeId));
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean isAfter(double matchPercentage, long recipeId, RecipeScore other) {
+        int byMatch = Double.compare(other.matchPercentage(), matchPercentage);
+        return byMatch != 0 ? byMatch > 0 : recipeId > other.recipeId();
+    }
+
+    static double matchPercentage(int availableCount, int totalIngredients, boolean hasExcluded) {
+        double matchPercentage = 0;
+        if (totalIngredients > 0) {
+            matchPercentage = (double) availableCount / totalIngredients * 100;
+            if (hasExcluded) {
+                matchPercentage *= 0.5; // Штраф за исключенные
+            }
+        }
+        return Math.round(matchPercentage * 10) / 10.0;
+    }
+
+    // Индекс обновляется раньше, чем сбрасывается кэш рекомендаций
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeSaved(RecipeSavedEvent event) {
+        if (event.approved()) {
+            put(event.recipeId(), event.productIds());
+        } else {
+            remove(event.recipeId());
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeDeleted(RecipeDeletedEvent event) {
+        remove(event.recipeId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductDeleted(ProductDeletedEvent event) {
+        removeProduct(event.productId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        rebuild();
+    }
+
+    private void putLocked(Long recipeId, Collection<Long> productIds) {
+        int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+        ensureCapacity(slot + 1);
+
+        long[] products = productIds == null ? NO_PRODUCTS
+                : productIds.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+        recipeIds[slot] = recipeId;
+        productsBySlot[slot] = products;
+        ingredientCounts[slot] = products.length;
+        occupiedSlots.set(slot);
+        slotByRecipeId.put(recipeId, slot);
+
+        for (long productId : products) {
+            recipesByProduct.computeIfAbsent(productId, id -> new BitSet()).set(slot);
+        }
+    }
+
+    private void removeLocked(Long recipeId) {
+        Integer slot = slotByRecipeId.remove(recipeId);
+        if (slot == null) {
+            return;
+        }
+        for (long productId : productsBySlot[slot]) {
+            BitSet slots = recipesByProduct.get(productId);
+            slots.clear(slot);
+            if (slots.isEmpty()) {
+                recipesByProduct.remove(productId);
+            }
+        }
+        productsBySlot[slot] = NO_PRODUCTS;
+        ingredientCounts[slot] = 0;
+        occupiedSlots.clear(slot);
+        freeSlots.push(slot);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= recipeIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, recipeIds.length * 3 / 2 + 16);
+        recipeIds = Arrays.copyOf(recipeIds, newCapacity);
+        productsBySlot = Arrays.copyOf(productsBySlot, newCapacity);
+        ingredientCounts = Arrays.copyOf(ingredientCounts, newCapacity);
+    }
+}
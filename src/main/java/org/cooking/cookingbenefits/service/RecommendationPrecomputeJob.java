@@ -0,0 +1,193 @@
+package org.cooking.cookingbenefits.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cooking.cookingbenefits.repository.UserRecommendationRepository;
+import org.cooking.cookingbenefits.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Фоновый расчет рекомендаций в таблицу user_recommendations.
+ * Пользователи делятся на диапазоны id, которые считаются параллельно в ForkJoinPool;
+ * каждый диапазон читает продукты и исключения двумя запросами и пишет результат пакетным upsert.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression(PrecomputedRecommendations.ENABLED)
+public class RecommendationPrecomputeJob {
+
+    private static final int USERS_PER_TASK = 500;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO user_recommendations (user_id, recipe_ids, match_percentages, computed_at) " +
+            "VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "recipe_ids = EXCLUDED.recipe_ids, " +
+            "match_percentages = EXCLUDED.match_percentages, " +
+            "computed_at = EXCLUDED.computed_at";
+
+    private final UserRepository userRepository;
+    private final UserRecommendationRepository userRecommendationRepository;
+    private final RecommendationIndex recommendationIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final int storedSize;
+    private final Duration activeWindow;
+    private final ForkJoinPool pool;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public RecommendationPrecomputeJob(
+            UserRepository userRepository,
+            UserRecommendationRepository userRecommendationRepository,
+            RecommendationIndex recommendationIndex,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.recommendations.precompute.size:50}") int storedSize,
+            @Value("${app.recommendations.precompute.active-window:P30D}") Duration activeWindow,
+            @Value("${app.recommendations.precompute.parallelism:0}") int parallelism) {
+        this.userRepository = userRepository;
+        this.userRecommendationRepository = userRecommendationRepository;
+        this.recommendationIndex = recommendationIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.storedSize = storedSize;
+        this.activeWindow = activeWindow;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Scheduled(cron = "${app.recommendations.precompute.cron:0 0 4 * * *}")
+    public void precomputeActiveUsers() {
+        if (tryStart()) {
+            runStarted("активные пользователи", this::findActiveUserIds);
+        }
+    }
+
+    // Пользователи, у которых что-то поменялось после прошлого расчета
+    @Scheduled(initialDelayString = "${app.recommendations.precompute.requeue-interval:60000}",
+            fixedDelayString = "${app.recommendations.precompute.requeue-interval:60000}")
+    public void precomputeStaleUsers() {
+        if (tryStart()) {
+            runStarted("измененные пользователи", userRecommendationRepository::findStaleUserIds);
+        }
+    }
+
+    public boolean startActiveUsers() {
+        // Флаг захватывается до запуска, иначе два одновременных вызова оба вернут true
+        if (!tryStart()) {
+            return false;
+        }
+        CompletableFuture.runAsync(() -> runStarted("активные пользователи", this::findActiveUserIds));
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private boolean tryStart() {
+        return recommendationIndex.isReady() && running.compareAndSet(false, true);
+    }
+
+    private List<Long> findActiveUserIds() {
+        return userRepository.findActiveUserIdsSince(LocalDateTime.now().minus(activeWindow));
+    }
+
+    // Вызывается только после успешного tryStart и всегда снимает флаг
+    private void runStarted(String description, Supplier<List<Long>> userIdsSupplier) {
+        try {
+            List<Long> userIds = new ArrayList<>(userIdsSupplier.get());
+            if (userIds.isEmpty()) {
+                return;
+            }
+            Collections.sort(userIds);
+            long started = System.nanoTime();
+            pool.invoke(new PrecomputeTask(userIds));
+            log.info("Рекомендации пересчитаны ({}): {} пользователей за {} мс",
+                    description, userIds.size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Ошибка фонового расчета рекомендаций ({})", description, e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void precomputeRange(List<Long> userIds) {
+        // Время фиксируется до чтения данных: изменения во время расчета оставят запись устаревшей
+        LocalDateTime computedAt = LocalDateTime.now();
+        // Повторно поставленные в очередь id разрежены, поэтому выбираются ровно они, а не весь диапазон
+        Long[] ids = userIds.toArray(Long[]::new);
+
+        Map<Long, Set<Long>> availableByUser = loadProductIds(
+                "SELECT user_id, product_id FROM user_products WHERE user_id = ANY(?)", ids);
+        Map<Long, Set<Long>> excludedByUser = loadProductIds(
+                "SELECT user_id, product_id FROM user_excluded_products WHERE user_id = ANY(?)", ids);
+
+        List<UserScores> rows = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            List<RecipeScore> scores = recommendationIndex.topScores(
+                    availableByUser.getOrDefault(userId, Set.of()),
+                    excludedByUser.getOrDefault(userId, Set.of()),
+                    storedSize, null);
+            rows.add(new UserScores(userId, scores));
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            Long[] recipeIds = row.scores().stream().map(RecipeScore::recipeId).toArray(Long[]::new);
+            Double[] matchPercentages = row.scores().stream().map(RecipeScore::matchPercentage).toArray(Double[]::new);
+            ps.setLong(1, row.userId());
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", recipeIds));
+            ps.setArray(3, ps.getConnection().createArrayOf("float8", matchPercentages));
+            ps.setTimestamp(4, Timestamp.valueOf(computedAt));
+        });
+    }
+
+    private Map<Long, Set<Long>> loadProductIds(String sql, Long[] userIds) {
+        Map<Long, Set<Long>> productIdsByUser = new HashMap<>();
+        jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", userIds)),
+                rs -> {
+                    productIdsByUser.computeIfAbsent(rs.getLong(1), id -> new HashSet<>()).add(rs.getLong(2));
+                });
+        return productIdsByUser;
+    }
+
+    private record UserScores(Long userId, List<RecipeScore> scores) {
+    }
+
+    private class PrecomputeTask extends RecursiveAction {
+
+        private final List<Long> userIds;
+
+        PrecomputeTask(List<Long> userIds) {
+            this.userIds = userIds;
+        }
+
+        @Override
+        protected void compute() {
+            if (userIds.size() <= USERS_PER_TASK) {
+                try {
+                    precomputeRange(userIds);
+                } catch (Exception e) {
+                    log.error("Ошибка расчета рекомендаций для пользователей {}..{}",
+                            userIds.get(0), userIds.get(userIds.size() - 1), e);
+                }
+                return;
+            }
+            int middle = userIds.size() / 2;
+            invokeAll(new PrecomputeTask(userIds.subList(0, middle)),
+                    new PrecomputeTask(userIds.subList(middle, userIds.size())));
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.cooking.cookingbenefits.service;
+
+import java.util.List;
+import java.util.Set;
+
+public record ScoredRecipes(List<RecipeScore> scores, Set<Long> favoriteRecipeIds, Set<Long> availableProductIds) {
+}
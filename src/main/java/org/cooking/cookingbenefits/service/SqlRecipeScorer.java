@@ -0,0 +1,43 @@
+package org.cooking.cookingbenefits.service;
+
+import lombok.RequiredArgsConstructor;
+import org.cooking.cookingbenefits.repository.RecipeRepository;
+import org.cooking.cookingbenefits.repository.UserProductRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Component
+@ConditionalOnProperty(name = "app.recommendations.scorer", havingValue = "sql")
+@RequiredArgsConstructor
+public class SqlRecipeScorer implements RecipeScorer {
+
+    // Процент совпадения не бывает больше 100, поэтому первая страница - "после 101%"
+    private static final RecipeScore FIRST_PAGE = new RecipeScore(0, 101.0);
+
+    private final RecipeRepository recipeRepository;
+    private final UserProductRepository userProductRepository;
+
+    @Override
+    public ScoredRecipes topScores(Long userId, int limit, RecipeScore after) {
+        RecipeScore from = after != null ? after : FIRST_PAGE;
+        List<RecipeRepository.RecipeMatchView> matches = recipeRepository.findTopMatches(
+                userId, from.matchPercentage(), from.recipeId(), limit);
+
+        List<RecipeScore> scores = new ArrayList<>(matches.size());
+        Set<Long> favoriteRecipeIds = new HashSet<>();
+        for (RecipeRepository.RecipeMatchView match : matches) {
+            scores.add(new RecipeScore(match.getRecipeId(), match.getMatchPercentage()));
+            if (Boolean.TRUE.equals(match.getIsFavorite())) {
+                favoriteRecipeIds.add(match.getRecipeId());
+            }
+        }
+        Set<Long> availableProductIds = scores.isEmpty() ? Set.of()
+                : new HashSet<>(userProductRepository.findProductIdsByUserId(userId));
+        return new ScoredRecipes(scores, favoriteRecipeIds, availableProductIds);
+    }
+}
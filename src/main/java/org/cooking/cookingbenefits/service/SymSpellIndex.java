@@ -0,0 +1,157 @@
+package org.cooking.cookingbenefits.service;
+
+import java.util.*;
+
+/**
+ * Нечеткий поиск по словам названий продуктов по схеме SymSpell: для каждого слова заранее
+ * строятся все удаления до {@code maxDistance} символов из его префикса, запрос порождает
+ * свои удаления, а совпавшие слова проверяются расстоянием Дамерау-Левенштейна.
+ * Продукт подходит, если для каждого слова запроса нашлось близкое слово в названии.
+ */
+public class SymSpellIndex {
+
+    private static final int PREFIX_LENGTH = 7;
+
+    private final int maxDistance;
+    private final Map<String, List<Integer>> productsByWord = new HashMap<>();
+    private final Map<String, List<String>> wordsByDelete = new HashMap<>();
+
+    public SymSpellIndex(int maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    // Продукты нужно добавлять в порядке убывания популярности
+    public void add(int productIndex, String normalizedName) {
+        for (String word : normalizedName.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            List<Integer> products = productsByWord.get(word);
+            if (products == null) {
+                products = new ArrayList<>(1);
+                productsByWord.put(word, products);
+                for (String delete : deletes(prefix(word), maxDistance)) {
+                    wordsByDelete.computeIfAbsent(delete, key -> new ArrayList<>(1)).add(word);
+                }
+            }
+            if (products.isEmpty() || products.get(products.size() - 1) != productIndex) {
+                products.add(productIndex);
+            }
+        }
+    }
+
+    public List<Match> search(String normalizedQuery, int limit) {
+        String[] queryWords = Arrays.stream(normalizedQuery.split(" ")).filter(w -> !w.isEmpty()).toArray(String[]::new);
+        if (queryWords.length == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, Integer> totalDistanceByProduct = null;
+        for (String queryWord : queryWords) {
+            Map<Integer, Integer> wordDistanceByProduct = searchWord(queryWord);
+            if (totalDistanceByProduct == null) {
+                totalDistanceByProduct = wordDistanceByProduct;
+            } else {
+                totalDistanceByProduct.keySet().retainAll(wordDistanceByProduct.keySet());
+                totalDistanceByProduct.replaceAll((product, distance) -> distance + wordDistanceByProduct.get(product));
+            }
+            if (totalDistanceByProduct.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(totalDistanceByProduct.size());
+        totalDistanceByProduct.forEach((product, distance) -> matches.add(new Match(product, distance)));
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparingInt(Match::productIndex));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    // Лучшее расстояние до продукта по одному слову запроса
+    private Map<Integer, Integer> searchWord(String queryWord) {
+        int allowed = allowedDistance(queryWord);
+        Map<Integer, Integer> distanceByProduct = new HashMap<>();
+        Set<String> checked = new HashSet<>();
+        for (String delete : deletes(prefix(queryWord), allowed)) {
+            List<String> words = wordsByDelete.get(delete);
+            if (words == null) {
+                continue;
+            }
+            for (String word : words) {
+                if (!checked.add(word)) {
+                    continue;
+                }
+                int distance = distance(queryWord, word, allowed);
+                if (distance <= allowed) {
+                    for (Integer product : productsByWord.get(word)) {
+                        distanceByProduct.merge(product, distance, Math::min);
+                    }
+                }
+            }
+        }
+        return distanceByProduct;
+    }
+
+    // Короткие слова почти целиком состоят из опечаток, для них допуск меньше
+    private int allowedDistance(String word) {
+        if (word.length() <= 3) {
+            return 0;
+        }
+        return Math.min(maxDistance, word.length() <= 5 ? 1 : 2);
+    }
+
+    private static String prefix(String word) {
+        return word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+    }
+
+    private static Set<String> deletes(String word, int distance) {
+        Set<String> deletes = new HashSet<>();
+        deletes.add(word);
+        collectDeletes(word, distance, deletes);
+        return deletes;
+    }
+
+    private static void collectDeletes(String word, int distance, Set<String> deletes) {
+        if (distance == 0 || word.length() <= 1) {
+            return;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            String delete = word.substring(0, i) + word.substring(i + 1);
+            if (deletes.add(delete)) {
+                collectDeletes(delete, distance - 1, deletes);
+            }
+        }
+    }
+
+    // Расстояние Дамерау-Левенштейна (optimal string alignment) с отсечением по maxDistance
+    static int distance(String first, String second, int maxDistance) {
+        if (Math.abs(first.length() - second.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int[][] d = new int[first.length() + 1][second.length() + 1];
+        for (int i = 0; i <= first.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= second.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2)
+                        && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, d[i][j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+        }
+        return d[first.length()][second.length()];
+    }
+
+    public record Match(int productIndex, int distance) {
+    }
+}
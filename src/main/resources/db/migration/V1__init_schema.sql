@@ -0,0 +1,66 @@
+-- Исходная схема. На существующей базе Flyway создает baseline версии 1 и этот скрипт пропускается
+
+CREATE TABLE IF NOT EXISTS users (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email         VARCHAR(255) NOT NULL UNIQUE,
+    password_hash VARCHAR(255) NOT NULL,
+    full_name     VARCHAR(255),
+    role          VARCHAR(255) NOT NULL,
+    is_active     BOOLEAN,
+    created_at    TIMESTAMP(6),
+    last_login_at TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS products (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name      VARCHAR(255) NOT NULL UNIQUE,
+    category  VARCHAR(255) NOT NULL,
+    is_common BOOLEAN
+);
+
+CREATE TABLE IF NOT EXISTS recipes (
+    id                   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title                VARCHAR(255) NOT NULL,
+    description          TEXT,
+    cooking_steps        TEXT         NOT NULL,
+    cooking_time_minutes INTEGER,
+    difficulty           VARCHAR(255) NOT NULL,
+    servings             INTEGER      NOT NULL,
+    category             VARCHAR(255),
+    image_url            VARCHAR(500),
+    is_approved          BOOLEAN,
+    created_at           TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS recipe_ingredients (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    recipe_id  BIGINT           NOT NULL REFERENCES recipes (id),
+    product_id BIGINT           NOT NULL REFERENCES products (id),
+    quantity   DOUBLE PRECISION NOT NULL,
+    unit       VARCHAR(20)      NOT NULL,
+    UNIQUE (recipe_id, product_id)
+);
+
+CREATE TABLE IF NOT EXISTS user_products (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT NOT NULL REFERENCES users (id),
+    product_id BIGINT NOT NULL REFERENCES products (id),
+    added_at   TIMESTAMP(6),
+    UNIQUE (user_id, product_id)
+);
+
+CREATE TABLE IF NOT EXISTS user_excluded_products (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     BIGINT NOT NULL REFERENCES users (id),
+    product_id  BIGINT NOT NULL REFERENCES products (id),
+    excluded_at TIMESTAMP(6),
+    UNIQUE (user_id, product_id)
+);
+
+CREATE TABLE IF NOT EXISTS user_favorites (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id   BIGINT NOT NULL REFERENCES users (id),
+    recipe_id BIGINT NOT NULL REFERENCES recipes (id),
+    added_at  TIMESTAMP(6),
+    UNIQUE (user_id, recipe_id)
+);
@@ -0,0 +1,17 @@
+-- Полнотекстовый поиск по рецептам: русская и английская морфология,
+-- заголовок весомее описания, описание весомее шагов приготовления
+
+ALTER TABLE recipes
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+            setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+            setweight(to_tsvector('russian', coalesce(description, '')), 'B') ||
+            setweight(to_tsvector('english', coalesce(description, '')), 'B') ||
+            setweight(to_tsvector('russian', coalesce(cooking_steps, '')), 'C') ||
+            setweight(to_tsvector('english', coalesce(cooking_steps, '')), 'C')
+        ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_recipes_search_vector ON recipes USING GIN (search_vector);
+
+CREATE INDEX IF NOT EXISTS idx_recipe_ingredients_product_recipe ON recipe_ingredients (product_id, recipe_id);
@@ -0,0 +1,6 @@
+-- Индексы под постраничную выдачу по ключу (название, id).
+-- Для products хватает уникального индекса по name
+
+CREATE INDEX IF NOT EXISTS idx_recipes_title_id ON recipes (title, id);
+
+CREATE INDEX IF NOT EXISTS idx_user_favorites_user ON user_favorites (user_id);
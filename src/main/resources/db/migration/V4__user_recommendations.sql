@@ -0,0 +1,21 @@
+-- Заранее посчитанные рекомендации. Раньше таблица создавалась через ddl-auto,
+-- поэтому на существующих базах она уже может быть
+
+CREATE TABLE IF NOT EXISTS user_recommendations (
+    user_id           BIGINT             PRIMARY KEY,
+    recipe_ids        BIGINT[]           NOT NULL,
+    match_percentages DOUBLE PRECISION[] NOT NULL,
+    computed_at       TIMESTAMP(6)       NOT NULL,
+    changed_at        TIMESTAMP(6)
+);
+
+-- Время последнего изменения каталога рецептов. Одна строка вместо отметки в каждой записи:
+-- рекомендации, посчитанные раньше этого времени, считаются устаревшими
+CREATE TABLE IF NOT EXISTS recommendation_catalog (
+    id         SMALLINT     PRIMARY KEY CHECK (id = 1),
+    changed_at TIMESTAMP(6) NOT NULL
+);
+
+INSERT INTO recommendation_catalog (id, changed_at)
+VALUES (1, now())
+ON CONFLICT (id) DO NOTHING;
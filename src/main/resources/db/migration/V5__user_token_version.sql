@@ -0,0 +1,21 @@
+-- Версия учетных данных пользователя. Токен хранит версию на момент выпуска и перестает
+-- приниматься, когда она меняется. Счетчик увеличивает триггер, поэтому учитываются и
+-- изменения в обход приложения (ручной UPDATE, другие сервисы)
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION users_bump_token_version() RETURNS trigger AS $$
+BEGIN
+    IF (NEW.email, NEW.password_hash, NEW.role, NEW.is_active)
+            IS DISTINCT FROM (OLD.email, OLD.password_hash, OLD.role, OLD.is_active) THEN
+        NEW.token_version := OLD.token_version + 1;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS users_token_version ON users;
+CREATE TRIGGER users_token_version
+    BEFORE UPDATE ON users
+    FOR EACH ROW
+EXECUTE FUNCTION users_bump_token_version();
@@ -0,0 +1,21 @@
+package org.cooking.cookingbenefits;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+/**
+ * Общий контейнер PostgreSQL для тестов, которым нужны настоящие SQL и блокировки
+ * (ON CONFLICT, массивы, пакетные запросы). Схему создает Flyway, как в рабочем окружении.
+ * Без Docker такие тесты пропускаются.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    protected static final PostgreSQLContainer POSTGRES = new PostgreSQLContainer("postgres:16-alpine");
+}
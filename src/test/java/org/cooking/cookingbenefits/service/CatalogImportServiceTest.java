@@ -0,0 +1,65 @@
+package org.cooking.cookingbenefits.service;
+
+import org.cooking.cookingbenefits.PostgresIntegrationTest;
+import org.cooking.cookingbenefits.dto.ImportJobStatus;
+import org.cooking.cookingbenefits.entity.Product;
+import org.cooking.cookingbenefits.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Импорт продуктов на настоящем PostgreSQL: счетчики добавленных и пропущенных строк берутся
+ * из ответа БД, а не из пакетных счетчиков драйвера (с reWriteBatchedInserts они неинформативны).
+ */
+class CatalogImportServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void duplicateNamesAreCountedAsSkipped() throws Exception {
+        String prefix = UUID.randomUUID().toString();
+        Product existing = new Product();
+        existing.setName(prefix + " существующий");
+        existing.setCategory("Тест");
+        productRepository.save(existing);
+
+        String csv = String.join("\n",
+                "name,category,is_common",
+                prefix + " существующий,Тест,true",
+                prefix + " первый,Тест,true",
+                prefix + " второй,Тест,false",
+                prefix + " первый,Тест,true");
+        ImportJobStatus status = catalogImportService.startProductImport(new MockMultipartFile(
+                "file", "products.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)));
+
+        status = awaitFinished(status.getId());
+
+        assertThat(status.getState()).isEqualTo("DONE");
+        assertThat(status.getTotalRecords()).isEqualTo(4);
+        assertThat(status.getWrittenRecords()).isEqualTo(2);
+        assertThat(status.getSkippedRecords()).isEqualTo(2);
+        assertThat(productRepository.findAll())
+                .filteredOn(product -> product.getName().startsWith(prefix))
+                .hasSize(3);
+    }
+
+    private ImportJobStatus awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (true) {
+            ImportJobStatus status = catalogImportService.getStatus(jobId).orElseThrow();
+            if (status.getFinishedAt() != null || System.nanoTime() > deadline) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+    }
+}
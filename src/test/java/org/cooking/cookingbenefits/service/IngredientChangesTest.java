@@ -0,0 +1,70 @@
+package org.cooking.cookingbenefits.service;
+
+import org.cooking.cookingbenefits.dto.RecipeDTO;
+import org.cooking.cookingbenefits.entity.Product;
+import org.cooking.cookingbenefits.entity.RecipeIngredient;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngredientChangesTest {
+
+    private static final int INGREDIENTS = 20;
+
+    @Test
+    void typicalEditTouchesOnlyChangedIngredients() {
+        List<RecipeIngredient> existing = new ArrayList<>();
+        List<RecipeDTO.IngredientDTO> desired = new ArrayList<>();
+        for (long productId = 1; productId <= INGREDIENTS; productId++) {
+            existing.add(ingredient(productId, 100.0, "г"));
+            desired.add(dto(productId, 100.0, "г"));
+        }
+        // Правка админа: одно количество изменено, один продукт заменен другим
+        desired.set(0, dto(1, 150.0, "г"));
+        desired.set(INGREDIENTS - 1, dto(INGREDIENTS + 1, 1.0, "шт"));
+
+        IngredientChanges changes = IngredientChanges.between(existing, desired);
+
+        assertThat(changes.updates()).extracting(update -> update.ingredient().getProduct().getId()).containsExactly(1L);
+        assertThat(changes.inserts()).extracting(RecipeDTO.IngredientDTO::getProductId).containsExactly(INGREDIENTS + 1L);
+        assertThat(changes.deletes()).extracting(ingredient -> ingredient.getProduct().getId()).containsExactly((long) INGREDIENTS);
+    }
+
+    @Test
+    void unchangedIngredientsProduceNoWrites() {
+        IngredientChanges changes = IngredientChanges.between(
+                List.of(ingredient(1, 2.0, "шт"), ingredient(2, 0.5, "л")),
+                List.of(dto(2, 0.5, "л"), dto(1, 2.0, "шт")));
+
+        assertThat(changes.isEmpty()).isTrue();
+    }
+
+    @Test
+    void rejectsDuplicateProducts() {
+        assertThatThrownBy(() -> IngredientChanges.between(List.of(), List.of(dto(1, 1.0, "шт"), dto(1, 2.0, "шт"))))
+                .hasMessageContaining("несколько раз");
+    }
+
+    private static RecipeIngredient ingredient(long productId, double quantity, String unit) {
+        Product product = new Product();
+        product.setId(productId);
+        RecipeIngredient ingredient = new RecipeIngredient();
+        ingredient.setId(productId * 10);
+        ingredient.setProduct(product);
+        ingredient.setQuantity(quantity);
+        ingredient.setUnit(unit);
+        return ingredient;
+    }
+
+    private static RecipeDTO.IngredientDTO dto(long productId, double quantity, String unit) {
+        RecipeDTO.IngredientDTO dto = new RecipeDTO.IngredientDTO();
+        dto.setProductId(productId);
+        dto.setQuantity(quantity);
+        dto.setUnit(unit);
+        return dto;
+    }
+}
@@ -0,0 +1,85 @@
+package org.cooking.cookingbenefits.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinHashLshTest {
+
+    private static final int BASE_RECIPES = 2_000;
+    private static final int VARIANTS_PER_RECIPE = 10;
+    private static final int PRODUCTS = 1_000;
+    private static final int INGREDIENTS = 8;
+
+    @Test
+    void findsSameNeighboursAsExactJaccard() {
+        Map<Long, List<Long>> catalog = syntheticCatalog(new SplittableRandom(42));
+        MinHashLsh lsh = new MinHashLsh(16, 4);
+        catalog.forEach(lsh::put);
+
+        Map<Long, long[]> sortedProducts = new HashMap<>();
+        catalog.forEach((id, products) ->
+                sortedProducts.put(id, products.stream().mapToLong(Long::longValue).sorted().toArray()));
+
+        double threshold = 0.5;
+        int expected = 0;
+        int found = 0;
+
+        for (long recipeId = 0; recipeId < catalog.size(); recipeId += 97) {
+            Set<Long> exact = new HashSet<>();
+            long[] products = sortedProducts.get(recipeId);
+            for (Map.Entry<Long, long[]> other : sortedProducts.entrySet()) {
+                if (other.getKey() != recipeId && MinHashLsh.jaccard(products, other.getValue()) >= threshold) {
+                    exact.add(other.getKey());
+                }
+            }
+            List<MinHashLsh.Similarity> approximate = lsh.findSimilar(recipeId, Integer.MAX_VALUE, threshold);
+
+            expected += exact.size();
+            found += (int) approximate.stream().filter(s -> exact.contains(s.recipeId())).count();
+            assertThat(approximate).allMatch(s -> s.similarity() >= threshold);
+        }
+
+        double recall = (double) found / expected;
+        assertThat(recall).isGreaterThan(0.85);
+    }
+
+    @Test
+    void removedRecipeIsNoLongerReturned() {
+        MinHashLsh lsh = new MinHashLsh(16, 4);
+        lsh.put(1L, List.of(1L, 2L, 3L, 4L));
+        lsh.put(2L, List.of(1L, 2L, 3L, 4L));
+
+        assertThat(lsh.findSimilar(1L, 10, 0.0)).extracting(MinHashLsh.Similarity::recipeId).containsExactly(2L);
+
+        lsh.remove(2L);
+
+        assertThat(lsh.findSimilar(1L, 10, 0.0)).isEmpty();
+    }
+
+    // Базовые наборы ингредиентов и их варианты с одной-двумя заменами
+    private static Map<Long, List<Long>> syntheticCatalog(SplittableRandom random) {
+        Map<Long, List<Long>> catalog = new HashMap<>();
+        long recipeId = 0;
+        for (int base = 0; base < BASE_RECIPES; base++) {
+            Set<Long> baseProducts = new HashSet<>();
+            while (baseProducts.size() < INGREDIENTS) {
+                baseProducts.add((long) random.nextInt(PRODUCTS));
+            }
+            for (int variant = 0; variant < VARIANTS_PER_RECIPE; variant++) {
+                List<Long> products = new ArrayList<>(baseProducts);
+                int replacements = variant == 0 ? 0 : 1 + random.nextInt(2);
+                for (int i = 0; i < replacements; i++) {
+                    long replacement = random.nextInt(PRODUCTS);
+                    if (!products.contains(replacement)) {
+                        products.set(random.nextInt(products.size()), replacement);
+                    }
+                }
+                catalog.put(recipeId++, products);
+            }
+        }
+        return catalog;
+    }
+}
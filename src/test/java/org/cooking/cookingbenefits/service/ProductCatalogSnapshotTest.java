@@ -0,0 +1,42 @@
+package org.cooking.cookingbenefits.service;
+
+import org.cooking.cookingbenefits.dto.ProductDTO;
+import org.cooking.cookingbenefits.entity.Product;
+import org.cooking.cookingbenefits.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductCatalogSnapshotTest {
+
+    @Test
+    void categoryQueryMergesExactAndContainingCategories() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findAll()).thenReturn(new ArrayList<>(List.of(
+                product(1L, "Морковь", "Овощи"),
+                product(2L, "Горошек", "Замороженные овощи"),
+                product(3L, "Брокколи", "Замороженные овощи"),
+                product(4L, "Брокколи", "Овощи"),
+                product(5L, "Яблоко", "Фрукты"))));
+        ProductCatalogSnapshot snapshot = new ProductCatalogSnapshot(productRepository);
+        snapshot.rebuild();
+
+        assertThat(snapshot.byCategory(" овощи ")).extracting(ProductDTO::getId)
+                .containsExactly(3L, 4L, 2L, 1L);
+        assertThat(snapshot.byCategory("Замороженные овощи")).extracting(ProductDTO::getId)
+                .containsExactly(3L, 2L);
+    }
+
+    private static Product product(Long id, String name, String category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        return product;
+    }
+}
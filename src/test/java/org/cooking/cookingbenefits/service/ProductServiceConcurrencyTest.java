@@ -0,0 +1,108 @@
+package org.cooking.cookingbenefits.service;
+
+import org.cooking.cookingbenefits.PostgresIntegrationTest;
+import org.cooking.cookingbenefits.dto.ProductDTO;
+import org.cooking.cookingbenefits.entity.Product;
+import org.cooking.cookingbenefits.entity.User;
+import org.cooking.cookingbenefits.repository.ProductRepository;
+import org.cooking.cookingbenefits.repository.UserProductRepository;
+import org.cooking.cookingbenefits.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Параллельные изменения продуктов пользователя на настоящем PostgreSQL: каждая операция
+ * отправляется дважды из разных потоков, повторы и гонки должен разрешить уникальный ключ
+ * (user_id, product_id). Пропускная способность по числу потоков меряется в
+ * PantryWritesBenchmark (src/jmh).
+ */
+class ProductServiceConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int USERS = 20;
+    private static final int PRODUCTS = 10;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserProductRepository userProductRepository;
+
+    @Test
+    void concurrentDuplicatePantryWritesAreIdempotent() throws Exception {
+        String prefix = UUID.randomUUID().toString();
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(userRepository.save(User.builder()
+                    .email(prefix + "-" + i + "@example.com")
+                    .passwordHash("-")
+                    .build()).getId());
+        }
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName(prefix + " " + i);
+            product.setCategory("Тест");
+            productIds.add(productRepository.save(product).getId());
+        }
+
+        run(userIds, productIds);
+
+        // Остаются продукты с четным индексом, без дублей
+        for (Long userId : userIds) {
+            List<Long> expected = new ArrayList<>();
+            for (int i = 0; i < PRODUCTS; i += 2) {
+                expected.add(productIds.get(i));
+            }
+            assertThat(userProductRepository.findWithProductByUserId(userId))
+                    .extracting(userProduct -> userProduct.getProduct().getId())
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    // Все продукты добавляются, затем нечетные удаляются; каждая операция отправляется дважды
+    private void run(List<Long> userIds, List<Long> productIds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> adds = new ArrayList<>();
+            List<Callable<Void>> removes = new ArrayList<>();
+            for (Long userId : userIds) {
+                for (int i = 0; i < productIds.size(); i++) {
+                    Long productId = productIds.get(i);
+                    ProductDTO dto = new ProductDTO();
+                    dto.setId(productId);
+                    for (int copy = 0; copy < 2; copy++) {
+                        adds.add(() -> {
+                            productService.addUserProduct(userId, dto);
+                            return null;
+                        });
+                        if (i % 2 == 1) {
+                            removes.add(() -> {
+                                productService.removeUserProduct(userId, productId);
+                                return null;
+                            });
+                        }
+                    }
+                }
+            }
+            Collections.shuffle(adds, new Random(1));
+            Collections.shuffle(removes, new Random(2));
+            for (Future<Void> future : executor.invokeAll(adds)) {
+                future.get();
+            }
+            for (Future<Void> future : executor.invokeAll(removes)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.cooking.cookingbenefits.service;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.cooking.cookingbenefits.PostgresIntegrationTest;
+import org.cooking.cookingbenefits.dto.RecipeDTO;
+import org.cooking.cookingbenefits.entity.Product;
+import org.cooking.cookingbenefits.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Число обращений к БД при правке рецепта. Считаются выполнения операторов на уровне
+ * DataSource: пакет JDBC или Hibernate - одно выполнение, сколько бы строк в нем ни было.
+ */
+class RecipeUpdateStatementsTest extends PostgresIntegrationTest {
+
+    private static final int INGREDIENTS = 20;
+
+    @Autowired
+    private RecipeService recipeService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StatementRecorder statements;
+
+    @Test
+    void editWritesOnlyChangedIngredientsInOneStatementPerKind() {
+        List<Long> productIds = createProducts(INGREDIENTS + 2);
+        RecipeDTO recipe = recipe(productIds.subList(0, INGREDIENTS));
+        RecipeDTO created = recipeService.createRecipe(recipe);
+
+        // Правка админа: два количества изменены, два продукта заменены другими
+        List<RecipeDTO.IngredientDTO> ingredients = recipe.getIngredients();
+        ingredients.set(0, ingredient(productIds.get(0), 150.0, "г"));
+        ingredients.set(1, ingredient(productIds.get(1), 250.0, "г"));
+        ingredients.set(INGREDIENTS - 2, ingredient(productIds.get(INGREDIENTS), 1.0, "шт"));
+        ingredients.set(INGREDIENTS - 1, ingredient(productIds.get(INGREDIENTS + 1), 2.0, "шт"));
+
+        statements.start();
+        RecipeDTO updated = recipeService.updateRecipe(created.getId(), recipe);
+        List<String> executed = statements.stop();
+
+        assertThat(updated.getIngredients()).hasSize(INGREDIENTS);
+        // Прежняя реализация: DELETE всего состава, затем SELECT продукта и INSERT на каждый ингредиент
+        assertThat(count(executed, "insert into recipe_ingredients")).isEqualTo(1);
+        assertThat(count(executed, "update recipe_ingredients")).isEqualTo(1);
+        assertThat(count(executed, "delete from recipe_ingredients")).isEqualTo(1);
+        assertThat(count(executed, "from products")).isEqualTo(1); // проверка новых продуктов одним SELECT
+    }
+
+    @Test
+    void unchangedIngredientsProduceNoIngredientWrites() {
+        List<Long> productIds = createProducts(3);
+        RecipeDTO recipe = recipe(productIds);
+        RecipeDTO created = recipeService.createRecipe(recipe);
+
+        statements.start();
+        recipeService.updateRecipe(created.getId(), recipe);
+        List<String> executed = statements.stop();
+
+        assertThat(executed).noneMatch(sql -> sql.startsWith("insert into recipe_ingredients")
+                || sql.startsWith("update recipe_ingredients")
+                || sql.startsWith("delete from recipe_ingredients"));
+    }
+
+    private static long count(List<String> executed, String fragment) {
+        return executed.stream().filter(sql -> sql.contains(fragment)).count();
+    }
+
+    private List<Long> createProducts(int count) {
+        String prefix = UUID.randomUUID().toString();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setName(prefix + " " + i);
+            product.setCategory("Тест");
+            product.setIsCommon(true);
+            products.add(product);
+        }
+        return productRepository.saveAll(products).stream().map(Product::getId).toList();
+    }
+
+    private static RecipeDTO recipe(List<Long> productIds) {
+        RecipeDTO recipe = new RecipeDTO();
+        recipe.setTitle("Рецепт " + UUID.randomUUID());
+        recipe.setCookingSteps("Смешать");
+        recipe.setDifficulty("easy");
+        recipe.setServings(2);
+        List<RecipeDTO.IngredientDTO> ingredients = new ArrayList<>();
+        for (Long productId : productIds) {
+            ingredients.add(ingredient(productId, 100.0, "г"));
+        }
+        recipe.setIngredients(ingredients);
+        return recipe;
+    }
+
+    private static RecipeDTO.IngredientDTO ingredient(long productId, double quantity, String unit) {
+        RecipeDTO.IngredientDTO dto = new RecipeDTO.IngredientDTO();
+        dto.setProductId(productId);
+        dto.setQuantity(quantity);
+        dto.setUnit(unit);
+        return dto;
+    }
+
+    // Первый SQL каждого выполнения в нижнем регистре; пакет дает одну запись
+    static class StatementRecorder implements QueryExecutionListener {
+
+        private final List<String> executed = new CopyOnWriteArrayList<>();
+        private volatile boolean recording;
+
+        void start() {
+            executed.clear();
+            recording = true;
+        }
+
+        List<String> stop() {
+            recording = false;
+            return List.copyOf(executed);
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (recording && !queryInfoList.isEmpty()) {
+                executed.add(queryInfoList.get(0).getQuery().trim().toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class StatementRecorderConfig {
+
+        @Bean
+        static StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+
+        @Bean
+        static BeanPostProcessor recordingDataSource(ObjectProvider<StatementRecorder> recorder) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder.create(dataSource).listener(recorder.getObject()).build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
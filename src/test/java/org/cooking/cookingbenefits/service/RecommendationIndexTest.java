@@ -0,0 +1,38 @@
+package org.cooking.cookingbenefits.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationIndexTest {
+
+    @Test
+    void nearMatchesIncludeSmallRecipesWithoutPantryOverlap() {
+        RecommendationIndex index = new RecommendationIndex(null, null, null);
+        index.put(1L, List.of(10L, 11L, 12L));
+        index.put(2L, List.of(20L));
+        index.put(3L, List.of(30L, 31L));
+        index.put(4L, List.of(40L, 41L, 42L));
+        index.put(5L, List.of(50L));
+
+        List<NearMatch> matches = index.findNearMatches(Set.of(10L, 11L), Set.of(50L), 2, 10);
+
+        assertThat(matches).containsExactly(
+                new NearMatch(1L, 1, 3),
+                new NearMatch(2L, 1, 1),
+                new NearMatch(3L, 2, 2));
+    }
+
+    @Test
+    void nearMatchesWithoutMissingRequireFullPantry() {
+        RecommendationIndex index = new RecommendationIndex(null, null, null);
+        index.put(1L, List.of(10L));
+        index.put(2L, List.of(20L));
+
+        assertThat(index.findNearMatches(Set.of(10L), Set.of(), 0, 10))
+                .containsExactly(new NearMatch(1L, 0, 1));
+    }
+}
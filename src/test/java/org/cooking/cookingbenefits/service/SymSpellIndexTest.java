@@ -0,0 +1,99 @@
+package org.cooking.cookingbenefits.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymSpellIndexTest {
+
+    private static final int PRODUCTS = 50_000;
+    private static final int QUERIES = 2_000;
+
+    private static final String[] BASES = {"помидор", "огурец", "молоко", "сыр", "картофель", "морковь", "говядина",
+            "свинина", "курица", "йогурт", "сметана", "творог", "яблоко", "груша", "капуста", "лук", "чеснок",
+            "перец", "баклажан", "кабачок", "гречка", "рис", "макароны", "мука", "сахар", "соль", "масло", "яйцо"};
+    private static final String[] ADJECTIVES = {"свежий", "копченый", "молодой", "домашний", "органический",
+            "замороженный", "сушеный", "маринованный", "красный", "зеленый", "черри", "фермерский"};
+    private static final String SYLLABLES = "ба ве го да ке ли мо но пу ра си ту фа хо це ша";
+
+    @Test
+    void findsMisspelledNamesAtFiftyThousandProducts() {
+        SplittableRandom random = new SplittableRandom(7);
+        List<String> names = syntheticNames(random);
+        SymSpellIndex index = new SymSpellIndex(2);
+        for (int i = 0; i < names.size(); i++) {
+            index.add(i, ProductNameNormalizer.normalize(names.get(i)));
+        }
+
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            int target = random.nextInt(names.size());
+            String query = misspell(ProductNameNormalizer.normalize(names.get(target)), random);
+            List<SymSpellIndex.Match> matches = index.search(query, 50);
+            if (matches.stream().anyMatch(match -> match.productIndex() == target)) {
+                found++;
+            }
+        }
+        // Имена повторяются, поэтому в топ-50 может не попасть именно загаданный продукт
+        assertThat(found).isGreaterThan(QUERIES * 8 / 10);
+    }
+
+    @Test
+    void ranksByEditDistance() {
+        SymSpellIndex index = new SymSpellIndex(2);
+        index.add(0, "помидоры черри");
+        index.add(1, "помидор");
+        index.add(2, "помадка");
+
+        List<SymSpellIndex.Match> matches = index.search("помидор", 10);
+
+        assertThat(matches).extracting(SymSpellIndex.Match::productIndex).containsExactly(1, 0);
+        assertThat(matches).extracting(SymSpellIndex.Match::distance).containsExactly(0, 1);
+        assertThat(index.search("пмоидор", 10)).extracting(SymSpellIndex.Match::productIndex).contains(1);
+    }
+
+    @Test
+    void foldsLatinLookalikesAndKeyboardLayout() {
+        assertThat(ProductNameNormalizer.normalize("Мoлoкo  3.2%")).isEqualTo("молоко 3.2%");
+        assertThat(ProductNameNormalizer.normalize("Coca cola")).isEqualTo("coca cola");
+        assertThat(ProductNameNormalizer.switchKeyboardLayout("vjkjrj")).isEqualTo("молоко");
+    }
+
+    private static List<String> syntheticNames(SplittableRandom random) {
+        String[] syllables = SYLLABLES.split(" ");
+        List<String> names = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            StringBuilder brand = new StringBuilder();
+            for (int s = 2 + random.nextInt(3); s > 0; s--) {
+                brand.append(syllables[random.nextInt(syllables.length)]);
+            }
+            names.add(ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                    + BASES[random.nextInt(BASES.length)] + " " + brand);
+        }
+        return names;
+    }
+
+    // Одна опечатка в случайном слове длиннее трех букв: удаление, замена или перестановка
+    private static String misspell(String name, SplittableRandom random) {
+        String[] words = name.split(" ");
+        int w = random.nextInt(words.length);
+        while (words[w].length() <= 3) {
+            w = (w + 1) % words.length;
+        }
+        StringBuilder word = new StringBuilder(words[w]);
+        int position = 1 + random.nextInt(word.length() - 2);
+        switch (random.nextInt(3)) {
+            case 0 -> word.deleteCharAt(position);
+            case 1 -> word.setCharAt(position, 'ы');
+            default -> {
+                char c = word.charAt(position);
+                word.setCharAt(position, word.charAt(position + 1));
+                word.setCharAt(position + 1, c);
+            }
+        }
+        words[w] = word.toString();
+        return String.join(" ", words);
+    }
+}
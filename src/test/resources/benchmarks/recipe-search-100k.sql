@@ -0,0 +1,54 @@
+-- Сравнение поиска рецептов: ILIKE по заголовку против search_vector + GIN на 100k рецептов.
+-- Запускать на пустой тестовой базе после миграций:
+--   psql -d cooking_bench -f recipe-search-100k.sql
+\timing on
+
+INSERT INTO products (name, category, is_common)
+SELECT 'product_' || i, 'category_' || (i % 20), true
+FROM generate_series(1, 2000) AS i
+ON CONFLICT (name) DO NOTHING;
+
+INSERT INTO recipes (title, description, cooking_steps, cooking_time_minutes, difficulty, servings, category, is_approved)
+SELECT (ARRAY ['Суп', 'Салат', 'Омлет', 'Паста', 'Пирог', 'Soup', 'Salad', 'Pancakes'])[1 + i % 8]
+           || ' ' || (ARRAY ['с курицей', 'с грибами', 'с томатами', 'with cheese', 'with beef'])[1 + i % 5]
+           || ' №' || i,
+       'Описание рецепта ' || i || ': простое и быстрое блюдо на каждый день',
+       'Нарезать продукты, обжарить на сковороде, добавить специи и тушить ' || (10 + i % 30) || ' минут',
+       10 + i % 120, 'medium', 2, 'category_' || (i % 10), true
+FROM generate_series(1, 100000) AS i;
+
+INSERT INTO recipe_ingredients (recipe_id, product_id, quantity, unit)
+SELECT r.id, p.id, 100, 'г'
+FROM recipes r
+CROSS JOIN LATERAL (
+    SELECT DISTINCT 1 + ((r.id * 7919 + k * 104729) % 2000) AS id
+    FROM generate_series(1, 8) AS k
+) p
+ON CONFLICT (recipe_id, product_id) DO NOTHING;
+
+ANALYZE recipes;
+ANALYZE recipe_ingredients;
+
+-- Было: ведущий wildcard, последовательное сканирование
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM recipes WHERE lower(title) LIKE '%грибами%' ORDER BY id LIMIT 20;
+
+-- Стало: GIN по search_vector, ранжирование ts_rank (находит и "грибы", "гриб")
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT r.*
+FROM recipes r
+WHERE r.is_approved = true
+  AND r.search_vector @@ (websearch_to_tsquery('russian', 'гриб') || websearch_to_tsquery('english', 'гриб'))
+ORDER BY ts_rank(r.search_vector, websearch_to_tsquery('russian', 'гриб') || websearch_to_tsquery('english', 'гриб')) DESC, r.id
+LIMIT 20;
+
+-- Текст вместе с фильтром по продуктам
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT r.*
+FROM recipes r
+WHERE r.is_approved = true
+  AND r.search_vector @@ (websearch_to_tsquery('russian', 'суп курица') || websearch_to_tsquery('english', 'суп курица'))
+  AND (SELECT COUNT(DISTINCT ri.product_id) FROM recipe_ingredients ri
+       WHERE ri.recipe_id = r.id AND ri.product_id IN (1, 2, 3, 4, 5, 6, 7, 8, 9, 10)) >= 1
+ORDER BY r.id
+LIMIT 20;